@@ -0,0 +1,167 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * 基准测试使用的嵌入式数据库
+ * sqlite 使用临时文件，h2 使用 MySQL 兼容模式的内存库代替 MySQL
+ * 表结构由 SchemaMigrator 的迁移创建，与插件运行时一致
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+    private static final long DAY_MILLIS = 86400000L;
+    
+    private final HikariDataSource dataSource;
+    private final SqlDialect dialect;
+    private final Path file;
+    
+    private BenchmarkDatabase(HikariDataSource dataSource, SqlDialect dialect, Path file) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        this.file = file;
+    }
+    
+    /**
+     * @param backend sqlite 或 h2
+     * @param poolSize 连接池大小
+     */
+    static BenchmarkDatabase open(String backend, int poolSize) throws IOException, SQLException {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setMaximumPoolSize(poolSize);
+        hikariConfig.setPoolName("VolunteerPunish-Benchmark");
+        
+        Path file = null;
+        SqlDialect dialect;
+        if ("sqlite".equalsIgnoreCase(backend)) {
+            file = Files.createTempFile("volunteerpunish-bench", ".db");
+            dialect = SqlDialect.SQLITE;
+            hikariConfig.setJdbcUrl("jdbc:sqlite:" + file.toAbsolutePath());
+            // 与 DatabaseManager.setupSQLite 相同的设置
+            hikariConfig.addDataSourceProperty("journal_mode", "WAL");
+            hikariConfig.addDataSourceProperty("synchronous", "NORMAL");
+            hikariConfig.addDataSourceProperty("cache_size", "-64000");
+            hikariConfig.addDataSourceProperty("temp_store", "memory");
+            hikariConfig.addDataSourceProperty("mmap_size", "268435456");
+        } else if ("h2".equalsIgnoreCase(backend)) {
+            dialect = SqlDialect.MYSQL;
+            hikariConfig.setJdbcUrl("jdbc:h2:mem:volunteerpunish-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        } else {
+            throw new IllegalArgumentException("不支持的基准测试数据库: " + backend);
+        }
+        
+        BenchmarkDatabase database = new BenchmarkDatabase(new HikariDataSource(hikariConfig), dialect, file);
+        database.createTables();
+        return database;
+    }
+    
+    private void createTables() throws SQLException {
+        // H2 不支持 GET_LOCK，这里直接逐个执行迁移而不经过 SchemaMigrator.migrate
+        SchemaMigrator migrator = new SchemaMigrator(Logger.getLogger("VolunteerPunish-Benchmark"), dialect);
+        try (Connection connection = dataSource.getConnection()) {
+            for (Migration migration : migrator.getMigrations()) {
+                migration.migrate(connection, dialect);
+            }
+        }
+    }
+    
+    /**
+     * 写入处罚记录，每个目标玩家平均约10条，约5%仍处于生效状态
+     * @param rows 记录总数
+     * @param targets 目标玩家
+     */
+    void seedPunishments(int rows, UUID[] targets, Random random) throws SQLException {
+        long now = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PunishmentDao.INSERT_SQL)) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < rows; i++) {
+                UUID target = targets[random.nextInt(targets.length)];
+                boolean ban = random.nextBoolean();
+                long issuedAt = now - (long) (random.nextDouble() * 365 * DAY_MILLIS);
+                long duration = ban ? 86400L : 3600L;
+                boolean active = random.nextInt(20) == 0;
+                long expiresAt = active ? now + duration * 1000 : issuedAt + duration * 1000;
+                
+                statement.setBytes(1, UuidBytes.toBytes(target));
+                statement.setString(2, "V" + (1000 + random.nextInt(50)));
+                statement.setInt(3, (ban ? Punishment.Type.BAN : Punishment.Type.MUTE).getCode());
+                statement.setLong(4, duration);
+                statement.setString(5, "benchmark");
+                statement.setLong(6, issuedAt);
+                statement.setLong(7, expiresAt);
+                statement.setBoolean(8, active);
+                statement.addBatch();
+                
+                if ((i + 1) % 10000 == 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+    }
+    
+    /**
+     * 写入志愿者记录，志愿者ID为 V1000 起递增
+     */
+    void seedVolunteers(int count) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(dialect.upsertVolunteerSql())) {
+            for (int i = 0; i < count; i++) {
+                statement.setBytes(1, UuidBytes.toBytes(volunteerUuid(i)));
+                statement.setString(2, "default");
+                statement.setString(3, "V" + (1000 + i));
+                statement.setInt(4, 0);
+                statement.setInt(5, 0);
+                statement.setLong(6, System.currentTimeMillis());
+                statement.executeUpdate();
+            }
+        }
+    }
+    
+    /**
+     * seedVolunteers 写入的第 index 名志愿者的UUID
+     */
+    static UUID volunteerUuid(int index) {
+        return new UUID(1L, index);
+    }
+    
+    static UUID[] randomUuids(int count, Random random) {
+        UUID[] uuids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        return uuids;
+    }
+    
+    HikariDataSource getDataSource() {
+        return dataSource;
+    }
+    
+    SqlDialect getDialect() {
+        return dialect;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        dataSource.close();
+        if (file != null) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + "-wal"));
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + "-shm"));
+        }
+    }
+}
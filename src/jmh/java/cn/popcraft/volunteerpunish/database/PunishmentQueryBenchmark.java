@@ -0,0 +1,119 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 处罚查询热点路径的基准测试
+ * 聊天检查（isMuted）、登录检查（getActivePunishment）和历史记录分页查询，数据量 1万/10万/100万 条
+ * 通过 PunishmentDao 执行，与插件运行时一样在连接上复用预编译语句
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PunishmentQueryBenchmark {
+    private static final int HISTORY_PAGE_SIZE = 10;
+    // 跳页测试使用一名有 HEAVY_TARGET_ROWS 条记录的玩家，直接跳到 HISTORY_JUMP_PAGE 页
+    private static final int HEAVY_TARGET_ROWS = 500;
+    private static final int HISTORY_JUMP_PAGE = 40;
+    
+    @Param({"sqlite", "h2"})
+    public String backend;
+    
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+    
+    private BenchmarkDatabase database;
+    private PunishmentDao punishments;
+    private UUID[] targets;
+    private UUID heavyTarget;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        Random random = new Random(42);
+        database = BenchmarkDatabase.open(backend, 5);
+        punishments = new PunishmentDao(new StatementCache(database.getDialect()));
+        targets = BenchmarkDatabase.randomUuids(Math.max(1, rows / 10), random);
+        database.seedPunishments(rows, targets, random);
+        heavyTarget = new UUID(random.nextLong(), random.nextLong());
+        database.seedPunishments(HEAVY_TARGET_ROWS, new UUID[] {heavyTarget}, random);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+    
+    private UUID randomTarget() {
+        return targets[ThreadLocalRandom.current().nextInt(targets.length)];
+    }
+    
+    @Benchmark
+    public boolean chatCheck() throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection()) {
+            return punishments.isActive(connection, randomTarget(), Punishment.Type.MUTE, System.currentTimeMillis());
+        }
+    }
+    
+    @Benchmark
+    public boolean banCheck() throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection()) {
+            return punishments.isActive(connection, randomTarget(), Punishment.Type.BAN, System.currentTimeMillis());
+        }
+    }
+    
+    @Benchmark
+    public Punishment joinCheck() throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection()) {
+            return punishments.findActive(connection, randomTarget(), Punishment.Type.BAN, System.currentTimeMillis());
+        }
+    }
+    
+    @Benchmark
+    public List<Punishment> historyFirstPage() throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection()) {
+            return punishments.findPageAfter(connection, randomTarget(), Long.MAX_VALUE, Integer.MAX_VALUE, HISTORY_PAGE_SIZE);
+        }
+    }
+    
+    /**
+     * 直接跳到第 HISTORY_JUMP_PAGE 页：先按索引列跳过前面的记录，再按游标取一页
+     */
+    @Benchmark
+    public List<Punishment> historyPageJump() throws SQLException {
+        UUID target = heavyTarget;
+        try (Connection connection = database.getDataSource().getConnection()) {
+            long[] key = punishments.findKeyAfter(connection, target, Long.MAX_VALUE, Integer.MAX_VALUE,
+                (HISTORY_JUMP_PAGE - 1) * HISTORY_PAGE_SIZE);
+            if (key == null) {
+                return Collections.emptyList();
+            }
+            return punishments.findPageAfter(connection, target, key[0], (int) key[1], HISTORY_PAGE_SIZE);
+        }
+    }
+}
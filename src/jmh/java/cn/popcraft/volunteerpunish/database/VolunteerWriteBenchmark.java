@@ -0,0 +1,86 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import cn.popcraft.volunteerpunish.model.Volunteer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 志愿者写入路径的基准测试
+ * 多线程并发消耗配额（带惰性重置的条件 UPDATE）和保存志愿者（upsert）的吞吐量
+ * 通过 VolunteerDao 执行，与插件运行时一样在连接上复用预编译语句
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class VolunteerWriteBenchmark {
+    private static final int VOLUNTEERS = 50;
+    
+    @Param({"sqlite", "h2"})
+    public String backend;
+    
+    private BenchmarkDatabase database;
+    private VolunteerDao volunteers;
+    private Timestamp windowStart;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        database = BenchmarkDatabase.open(backend, 10);
+        database.seedVolunteers(VOLUNTEERS);
+        volunteers = new VolunteerDao(database.getDialect(), new StatementCache(database.getDialect()));
+        windowStart = new Timestamp(System.currentTimeMillis());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+    
+    @Benchmark
+    public boolean consumeQuota() throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection()) {
+            // 上限设为最大值，测量的是行锁竞争而不是配额耗尽
+            return volunteers.tryConsumeQuota(connection, BenchmarkDatabase.volunteerUuid(ThreadLocalRandom.current().nextInt(VOLUNTEERS)),
+                Punishment.Type.BAN, Integer.MAX_VALUE, windowStart);
+        }
+    }
+    
+    @Benchmark
+    public void saveVolunteer() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Volunteer volunteer = new Volunteer();
+        volunteer.setUuid(new UUID(0L, random.nextInt(VOLUNTEERS)));
+        volunteer.setGroupName("default");
+        volunteer.setVolunteerId("V" + (2000 + random.nextInt(VOLUNTEERS)));
+        volunteer.setDailyBanUsed(random.nextInt(10));
+        volunteer.setDailyMuteUsed(random.nextInt(10));
+        volunteer.setLastReset(new Timestamp(System.currentTimeMillis()));
+        try (Connection connection = database.getDataSource().getConnection()) {
+            volunteers.save(connection, volunteer);
+        }
+    }
+}
@@ -1,23 +1,31 @@
 package cn.popcraft.volunteerpunish;
 
+import cn.popcraft.volunteerpunish.cache.ActivePunishmentIndex;
+import cn.popcraft.volunteerpunish.cache.MuteCache;
+import cn.popcraft.volunteerpunish.cache.PlayerNameIndex;
+import cn.popcraft.volunteerpunish.cache.VolunteerCache;
 import cn.popcraft.volunteerpunish.command.VpCommand;
 import cn.popcraft.volunteerpunish.config.ConfigManager;
 import cn.popcraft.volunteerpunish.database.DatabaseManager;
 import cn.popcraft.volunteerpunish.hook.LuckPermsHook;
 import cn.popcraft.volunteerpunish.listener.ChatListener;
 import cn.popcraft.volunteerpunish.listener.PlayerJoinListener;
+import cn.popcraft.volunteerpunish.listener.PlayerLoginListener;
+import cn.popcraft.volunteerpunish.listener.PlayerQuitListener;
+import cn.popcraft.volunteerpunish.metrics.PluginMetrics;
+import cn.popcraft.volunteerpunish.metrics.PrometheusExporter;
 import cn.popcraft.volunteerpunish.model.Punishment;
 import cn.popcraft.volunteerpunish.model.Volunteer;
-import org.bukkit.BanList;
+import cn.popcraft.volunteerpunish.sync.PunishmentSync;
+import cn.popcraft.volunteerpunish.task.PunishmentExpiryTask;
+import cn.popcraft.volunteerpunish.task.VanillaBanMirror;
+import cn.popcraft.volunteerpunish.util.MainThreadExecutor;
+import cn.popcraft.volunteerpunish.util.MainThreadWatchdog;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitTask;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
@@ -29,18 +37,43 @@ public class VolunteerPunish extends JavaPlugin {
     private ConfigManager configManager;
     private DatabaseManager databaseManager;
     private LuckPermsHook luckPermsHook;
+    private MuteCache muteCache;
+    private ActivePunishmentIndex activePunishments;
+    private VolunteerCache volunteerCache;
+    private PlayerNameIndex playerNameIndex;
     private boolean isPluginEnabled = true;
     private VpCommand vpCommand;
-    private BukkitTask quotaResetTask;
+    private PunishmentExpiryTask expiryTask;
+    private VanillaBanMirror vanillaBanMirror;
+    private PunishmentSync punishmentSync;
+    private final PluginMetrics metrics = new PluginMetrics();
+    private PrometheusExporter prometheusExporter;
+    private final MainThreadExecutor mainThreadExecutor = new MainThreadExecutor(this);
+    private MainThreadWatchdog mainThreadWatchdog;
     
     @Override
     public void onEnable() {
         // 初始化配置管理器
         configManager = new ConfigManager(this);
+        mainThreadWatchdog = new MainThreadWatchdog(this);
         
         // 初始化数据库管理器
         databaseManager = new DatabaseManager(this);
         
+        // 初始化禁言状态缓存
+        muteCache = new MuteCache(this);
+        
+        // 初始化志愿者缓存并加载全部志愿者
+        volunteerCache = new VolunteerCache(this);
+        volunteerCache.loadAll().exceptionally(throwable -> {
+            getLogger().warning("加载志愿者缓存失败，将在需要时查询数据库: " + throwable.getMessage());
+            return null;
+        });
+        
+        // 异步构建玩家名补全索引
+        playerNameIndex = new PlayerNameIndex(this);
+        playerNameIndex.buildAsync();
+        
         // 初始化LuckPermsHook
         try {
             luckPermsHook = new LuckPermsHook(this);
@@ -59,87 +92,77 @@ public class VolunteerPunish extends JavaPlugin {
             command.setTabCompleter(vpCommand);
         }
         
-        // 注册监听器
+        // 加载所有生效的处罚，加载完成前封禁/禁言检查仍查询数据库
+        activePunishments = new ActivePunishmentIndex(this);
+        activePunishments.load().exceptionally(throwable -> {
+            getLogger().severe("加载生效的处罚记录失败，封禁/禁言检查将继续查询数据库: " + throwable.getMessage());
+            return null;
+        });
+        
+        // 启动处罚到期任务
+        expiryTask = new PunishmentExpiryTask(this);
+        expiryTask.start();
+        
+        // 启动原版封禁列表同步（解封旧版本写入的原版封禁也经过这里）
+        vanillaBanMirror = new VanillaBanMirror(this);
+        vanillaBanMirror.start();
+        
+        // 启动跨服同步（可选）
+        punishmentSync = PunishmentSync.create(this);
+        punishmentSync.start();
+        
+        // 监听器依赖上面的索引、到期任务和同步组件，必须在它们创建之后注册
+        getServer().getPluginManager().registerEvents(new PlayerLoginListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerJoinListener(this), this);
         getServer().getPluginManager().registerEvents(new ChatListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerQuitListener(this), this);
         
-        // 启动配额重置任务
-        startQuotaResetTask();
+        // 为已在线的玩家加载禁言状态（插件重载时）
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            muteCache.load(player.getUniqueId());
+        }
+        
+        // 启动 Prometheus 指标导出（可选）
+        if (configManager.isPrometheusEnabled()) {
+            prometheusExporter = new PrometheusExporter(this);
+            prometheusExporter.start();
+        }
         
         getLogger().info("VolunteerPunish 插件已启用");
     }
     
     @Override
     public void onDisable() {
-        // 取消配额重置任务
-        if (quotaResetTask != null) {
-            quotaResetTask.cancel();
+        // 停止跨服同步
+        if (punishmentSync != null) {
+            punishmentSync.stop();
         }
         
-        // 关闭数据库连接
-        if (databaseManager != null) {
-            databaseManager.close();
+        // 停止处罚到期任务
+        if (expiryTask != null) {
+            expiryTask.stop();
         }
         
-        getLogger().info("VolunteerPunish 插件已禁用");
-    }
-    
-    /**
-     * 启动每日配额重置任务
-     */
-    private void startQuotaResetTask() {
-        // 检查是否启用每日重置功能
-        if (!configManager.isEnableDailyReset()) {
-            getLogger().info("每日配额重置功能已禁用");
-            return;
+        // 写入尚未同步到原版封禁列表的操作
+        if (vanillaBanMirror != null) {
+            vanillaBanMirror.stop();
         }
         
-        // 计算到下次重置的时间
-        long delay = calculateNextResetDelay();
-        getLogger().info("配额重置任务将在 " + delay + " 秒后首次执行");
-        
-        // 安排定时任务（每天执行一次）
-        quotaResetTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
-            getLogger().info("开始执行每日配额重置任务");
-            databaseManager.resetDailyQuotas().thenRun(() -> {
-                getLogger().info("每日配额重置任务执行完成");
-            }).exceptionally(throwable -> {
-                getLogger().severe("每日配额重置任务执行失败: " + throwable.getMessage());
-                return null;
-            });
-        }, delay * 20L, 24 * 60 * 60 * 20L); // 延迟指定秒数后开始，然后每24小时执行一次
-    }
-    
-    /**
-     * 计算到下次重置的延迟时间（秒）
-     * @return 延迟秒数
-     */
-    private long calculateNextResetDelay() {
-        // 获取配置的时区
-        String timezoneStr = configManager.getResetTimezone();
-        ZoneId timezone;
-        try {
-            timezone = ZoneId.of(timezoneStr);
-        } catch (Exception e) {
-            getLogger().warning("无效的时区配置: " + timezoneStr + "，使用默认时区 UTC");
-            timezone = ZoneId.of("UTC");
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
         }
         
-        // 设置重置时间为每天的 UTC 00:00（或配置的时区对应时间）
-        LocalTime resetTime = LocalTime.MIDNIGHT;
-        LocalTime now = LocalTime.now(timezone);
-        LocalDate today = LocalDate.now(timezone);
+        // 取消 LuckPerms 事件订阅
+        if (luckPermsHook != null) {
+            luckPermsHook.shutdown();
+        }
         
-        // 计算下次重置日期
-        LocalDate nextResetDate = today;
-        if (!now.isBefore(resetTime)) {
-            // 如果当前时间已经过了今天的重置时间，则下次重置是明天
-            nextResetDate = today.plusDays(1);
+        // 关闭数据库连接
+        if (databaseManager != null) {
+            databaseManager.close();
         }
         
-        // 计算延迟秒数
-        long secondsUntilReset = java.time.Duration.between(now, resetTime.atDate(nextResetDate)).getSeconds();
-        return secondsUntilReset;
+        getLogger().info("VolunteerPunish 插件已禁用");
     }
     
     // 实现获取志愿者ID的逻辑
@@ -148,7 +171,7 @@ public class VolunteerPunish extends JavaPlugin {
             return CompletableFuture.completedFuture(null);
         }
         
-        return databaseManager.getVolunteerByUuid(uuid)
+        return volunteerCache.get(uuid)
             .thenApply(volunteer -> volunteer != null ? volunteer.getVolunteerId() : null)
             .exceptionally(throwable -> {
                 getLogger().severe("获取志愿者ID时发生错误: " + throwable.getMessage());
@@ -162,8 +185,14 @@ public class VolunteerPunish extends JavaPlugin {
             return null;
         }
         
+        // 优先使用缓存，缓存无法确定时才查询数据库
+        if (volunteerCache.isKnown(uuid)) {
+            Volunteer volunteer = volunteerCache.getIfPresent(uuid);
+            return volunteer != null ? volunteer.getVolunteerId() : null;
+        }
+        
         try {
-            Volunteer volunteer = databaseManager.getVolunteerByUuid(uuid).join();
+            Volunteer volunteer = mainThreadWatchdog.await(volunteerCache.get(uuid), "getVolunteerId");
             return volunteer != null ? volunteer.getVolunteerId() : null;
         } catch (Exception e) {
             getLogger().severe("获取志愿者ID时发生错误: " + e.getMessage());
@@ -176,6 +205,15 @@ public class VolunteerPunish extends JavaPlugin {
             return CompletableFuture.completedFuture(false);
         }
         
+        // 封禁以插件数据库为准，不再查询原版封禁列表
+        // 索引中有封禁时直接认定（数据库中可能尚未写入）；索引不完整时（如多服共用数据库且未同步）查询数据库
+        if (activePunishments.isActive(uuid, Punishment.Type.BAN)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (activePunishments.isAuthoritative()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
         return databaseManager.isBanned(uuid)
             .exceptionally(throwable -> {
                 getLogger().severe("检查玩家是否被封禁时发生错误: " + throwable.getMessage());
@@ -183,25 +221,11 @@ public class VolunteerPunish extends JavaPlugin {
             });
     }
 
+    /**
+     * 同步检查玩家是否被封禁（会阻塞调用线程，命令等主线程路径请使用 isBannedAsync）
+     */
     public boolean isBanned(UUID uuid) {
-        if (!isPluginEnabled) {
-            return false;
-        }
-
-        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-        if (player.getName() != null) {
-            BanList banList = getServer().getBanList(BanList.Type.NAME);
-            if (banList.isBanned(player.getName())) {
-                return true;
-            }
-        }
-
-        try {
-            return databaseManager.isBanned(uuid).join();
-        } catch (Exception e) {
-            getLogger().severe("检查玩家是否被封禁时发生错误: " + e.getMessage());
-            return false;
-        }
+        return mainThreadWatchdog.await(isBannedAsync(uuid), "isBanned");
     }
 
     public CompletableFuture<Boolean> isMutedAsync(UUID uuid) {
@@ -209,6 +233,15 @@ public class VolunteerPunish extends JavaPlugin {
             return CompletableFuture.completedFuture(false);
         }
         
+        // 在线玩家直接使用缓存
+        if (muteCache.isTracked(uuid)) {
+            return CompletableFuture.completedFuture(muteCache.isMuted(uuid));
+        }
+        
+        if (activePunishments.isAuthoritative()) {
+            return CompletableFuture.completedFuture(activePunishments.isActive(uuid, Punishment.Type.MUTE));
+        }
+        
         return databaseManager.isMuted(uuid)
             .exceptionally(throwable -> {
                 getLogger().severe("检查玩家是否被禁言时发生错误: " + throwable.getMessage());
@@ -216,18 +249,11 @@ public class VolunteerPunish extends JavaPlugin {
             });
     }
 
+    /**
+     * 同步检查玩家是否被禁言（在线玩家只读缓存，其他情况会阻塞调用线程，命令等主线程路径请使用 isMutedAsync）
+     */
     public boolean isMuted(UUID uuid) {
-        if (!isPluginEnabled) {
-            return false;
-        }
-        
-        // 同步检查玩家是否被禁言
-        try {
-            return databaseManager.isMuted(uuid).join();
-        } catch (Exception e) {
-            getLogger().severe("检查玩家是否被禁言时发生错误: " + e.getMessage());
-            return false;
-        }
+        return mainThreadWatchdog.await(isMutedAsync(uuid), "isMuted");
     }
     
     public void banPlayer(UUID uuid) {
@@ -239,198 +265,130 @@ public class VolunteerPunish extends JavaPlugin {
             return;
         }
         
-        // 获取玩家信息
-        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-        String playerName = player.getName() != null ? player.getName() : "Unknown";
-        
         // 计算过期时间
         Date expiration = null;
         if (durationSeconds != null && durationSeconds > 0) {
             expiration = new Date(System.currentTimeMillis() + (durationSeconds * 1000));
         }
+        applyBan(uuid, expiration, reason);
+        punishmentSync.publishPunish(uuid, Punishment.Type.BAN, expiration, reason);
+    }
+    
+    /**
+     * 在本服务器上执行封禁（生效处罚索引、踢出、到期登记），不写数据库也不广播
+     * 供本服务器发起的封禁和其他服务器同步过来的封禁共用
+     * @param expiration 到期时间，null表示永久
+     */
+    public void applyBan(UUID uuid, Date expiration, String reason) {
+        // 获取玩家信息
+        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+        String playerName = player.getName() != null ? player.getName() : "Unknown";
         
-        // 使用Minecraft服务器官方banlist API
-        BanList banList = getServer().getBanList(BanList.Type.NAME);
-        banList.addBan(playerName, reason, expiration, "VolunteerPunish Plugin");
+        activePunishments.put(uuid, Punishment.Type.BAN, expiration);
+        expiryTask.schedule(uuid, Punishment.Type.BAN, expiration);
+        
+        // 登录时由 PlayerLoginListener 拦截，原版封禁列表只在开启镜像时异步写入
+        vanillaBanMirror.ban(uuid, reason, expiration);
         
         // 如果玩家在线，则将其踢出服务器
         Player onlinePlayer = Bukkit.getPlayer(uuid);
         if (onlinePlayer != null && onlinePlayer.isOnline()) {
-            String kickMessage = "§c你已被封禁\n§7原因: " + reason;
-            if (expiration != null) {
-                kickMessage += "\n§7解封时间: " + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(expiration);
-            } else {
-                kickMessage += "\n§7类型: 永久封禁";
-            }
-            onlinePlayer.kickPlayer(kickMessage);
+            Punishment ban = new Punishment();
+            ban.setType(Punishment.Type.BAN);
+            ban.setReason(reason);
+            ban.setExpiresAt(expiration);
+            onlinePlayer.kickPlayer(configManager.getBanKickMessage().render(ban, "未指定"));
         }
         
         getLogger().info("已封禁玩家: " + playerName + " (" + uuid + ")" + 
-            (expiration != null ? "，时长: " + durationSeconds + "秒" : "，永久"));
+            (expiration != null ? "，到期时间: " + expiration : "，永久"));
     }
     
-    public void mutePlayer(UUID uuid) {
-        // 禁言逻辑将在事件监听器中处理
-        // 这里可以添加其他需要的逻辑
+    public void mutePlayer(UUID uuid, Date expiresAt) {
+        mutePlayer(uuid, expiresAt, null);
     }
     
-    public void unbanPlayer(UUID uuid) {
+    public void mutePlayer(UUID uuid, Date expiresAt, String reason) {
         if (!isPluginEnabled) {
             return;
         }
-
-        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-        String playerName = player.getName() != null ? player.getName() : "Unknown";
-
-        BanList banList = getServer().getBanList(BanList.Type.NAME);
-        if (playerName != null && !"Unknown".equals(playerName)) {
-            banList.pardon(playerName);
-        }
-
-        banList = getServer().getBanList(BanList.Type.IP);
-
-        try {
-            databaseManager.deactivatePunishments(uuid, Punishment.Type.BAN).join();
-
-            Player onlinePlayer = Bukkit.getPlayer(uuid);
-            if (onlinePlayer != null && onlinePlayer.isOnline()) {
-                onlinePlayer.sendMessage("§a你已被解封");
-            }
-
-            getLogger().info("已解封玩家: " + playerName + " (" + uuid + ")");
-        } catch (Exception e) {
-            getLogger().severe("解封玩家时发生错误: " + e.getMessage());
-        }
+        
+        applyMute(uuid, expiresAt);
+        punishmentSync.publishPunish(uuid, Punishment.Type.MUTE, expiresAt, reason);
     }
     
-    public void unmutePlayer(UUID uuid) {
-        if (!isPluginEnabled) {
-            return;
-        }
-        
-        // 异步停用该玩家的所有禁言记录
-        CompletableFuture.runAsync(() -> {
-            try {
-                databaseManager.deactivatePunishments(uuid, Punishment.Type.MUTE).join();
-                
-                // 如果玩家在线，发送解除禁言通知
-                Player player = Bukkit.getPlayer(uuid);
-                if (player != null && player.isOnline()) {
-                    getServer().getScheduler().runTask(this, () -> 
-                        player.sendMessage("§a你已被解除禁言"));
-                }
-            } catch (Exception e) {
-                getLogger().severe("解除玩家禁言时发生错误: " + e.getMessage());
-            }
-        });
+    /**
+     * 在本服务器上执行禁言，不写数据库也不广播
+     * @param expiresAt 到期时间，null表示永久
+     */
+    public void applyMute(UUID uuid, Date expiresAt) {
+        // 禁言的拦截在聊天监听器中处理，这里只需更新缓存并登记到期时间
+        muteCache.mute(uuid, expiresAt);
+        activePunishments.put(uuid, Punishment.Type.MUTE, expiresAt);
+        expiryTask.schedule(uuid, Punishment.Type.MUTE, expiresAt);
     }
     
-    public CompletableFuture<Boolean> checkBanQuota(String volunteerId) {
+    public void unbanPlayer(UUID uuid) {
         if (!isPluginEnabled) {
-            return CompletableFuture.completedFuture(false);
+            return;
         }
+
+        applyUnban(uuid);
+        punishmentSync.publishUnpunish(uuid, Punishment.Type.BAN);
         
-        // 异步检查封禁配额
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // 查找志愿者
-                Volunteer volunteer = databaseManager.getVolunteerByVolunteerId(volunteerId).join();
-                if (volunteer == null) {
-                    return false;
-                }
-                
-                // 获取该志愿者所在组的配额
-                ConfigManager.GroupConfig groupConfig = configManager.getGroups().get(volunteer.getGroupName());
-                if (groupConfig == null) {
-                    return false;
-                }
-                
-                // 检查配额
-                return volunteer.getDailyBanUsed() < groupConfig.getBanQuota();
-            } catch (Exception e) {
-                getLogger().severe("检查封禁配额时发生错误: " + e.getMessage());
-                return false;
-            }
+        // 停用该玩家的所有封禁记录（由写入队列批量保存）
+        databaseManager.deactivatePunishments(uuid, Punishment.Type.BAN).thenRun(() -> {
+            getLogger().info("已解封玩家: " + uuid);
+        }).exceptionally(throwable -> {
+            getLogger().severe("解封玩家时发生错误: " + throwable.getMessage());
+            return null;
         });
     }
     
-    public CompletableFuture<Boolean> checkMuteQuota(String volunteerId) {
-        if (!isPluginEnabled) {
-            return CompletableFuture.completedFuture(false);
+    /**
+     * 在本服务器上解除封禁，不写数据库也不广播
+     */
+    public void applyUnban(UUID uuid) {
+        vanillaBanMirror.pardon(uuid);
+        activePunishments.remove(uuid, Punishment.Type.BAN);
+        expiryTask.cancel(uuid, Punishment.Type.BAN);
+
+        Player onlinePlayer = Bukkit.getPlayer(uuid);
+        if (onlinePlayer != null && onlinePlayer.isOnline()) {
+            onlinePlayer.sendMessage("§a你已被解封");
         }
-        
-        // 异步检查禁言配额
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // 查找志愿者
-                Volunteer volunteer = databaseManager.getVolunteerByVolunteerId(volunteerId).join();
-                if (volunteer == null) {
-                    return false;
-                }
-                
-                // 获取该志愿者所在组的配额
-                ConfigManager.GroupConfig groupConfig = configManager.getGroups().get(volunteer.getGroupName());
-                if (groupConfig == null) {
-                    return false;
-                }
-                
-                // 检查配额
-                return volunteer.getDailyMuteUsed() < groupConfig.getMuteQuota();
-            } catch (Exception e) {
-                getLogger().severe("检查禁言配额时发生错误: " + e.getMessage());
-                return false;
-            }
-        });
     }
     
-    public CompletableFuture<Void> incrementBanCount(String volunteerId) {
+    public void unmutePlayer(UUID uuid) {
         if (!isPluginEnabled) {
-            return CompletableFuture.completedFuture(null);
+            return;
         }
         
-        // 异步增加封禁计数
-        return CompletableFuture.runAsync(() -> {
-            try {
-                // 查找志愿者
-                Volunteer volunteer = databaseManager.getVolunteerByVolunteerId(volunteerId).join();
-                if (volunteer == null) {
-                    return;
-                }
-                
-                // 增加计数
-                volunteer.setDailyBanUsed(volunteer.getDailyBanUsed() + 1);
-                
-                // 保存更新
-                databaseManager.saveVolunteer(volunteer).join();
-            } catch (Exception e) {
-                getLogger().severe("增加封禁计数时发生错误: " + e.getMessage());
-            }
+        applyUnmute(uuid);
+        punishmentSync.publishUnpunish(uuid, Punishment.Type.MUTE);
+        
+        // 停用该玩家的所有禁言记录（由写入队列批量保存）
+        databaseManager.deactivatePunishments(uuid, Punishment.Type.MUTE).exceptionally(throwable -> {
+            getLogger().severe("解除玩家禁言时发生错误: " + throwable.getMessage());
+            return null;
         });
     }
     
-    public CompletableFuture<Void> incrementMuteCount(String volunteerId) {
-        if (!isPluginEnabled) {
-            return CompletableFuture.completedFuture(null);
-        }
+    /**
+     * 在本服务器上解除禁言，不写数据库也不广播
+     */
+    public void applyUnmute(UUID uuid) {
+        // 立即更新缓存，聊天检查不再拦截
+        muteCache.unmute(uuid);
+        activePunishments.remove(uuid, Punishment.Type.MUTE);
+        expiryTask.cancel(uuid, Punishment.Type.MUTE);
         
-        // 异步增加禁言计数
-        return CompletableFuture.runAsync(() -> {
-            try {
-                // 查找志愿者
-                Volunteer volunteer = databaseManager.getVolunteerByVolunteerId(volunteerId).join();
-                if (volunteer == null) {
-                    return;
-                }
-                
-                // 增加计数
-                volunteer.setDailyMuteUsed(volunteer.getDailyMuteUsed() + 1);
-                
-                // 保存更新
-                databaseManager.saveVolunteer(volunteer).join();
-            } catch (Exception e) {
-                getLogger().severe("增加禁言计数时发生错误: " + e.getMessage());
-            }
-        });
+        // 如果玩家在线，发送解除禁言通知
+        Player player = Bukkit.getPlayer(uuid);
+        if (player != null && player.isOnline()) {
+            getServer().getScheduler().runTask(this, () -> 
+                player.sendMessage("§a你已被解除禁言"));
+        }
     }
     
     public void testDatabaseConnection() {
@@ -466,4 +424,43 @@ public class VolunteerPunish extends JavaPlugin {
     public LuckPermsHook getLuckPermsHook() {
         return luckPermsHook;
     }
+    
+    public MuteCache getMuteCache() {
+        return muteCache;
+    }
+    
+    public VolunteerCache getVolunteerCache() {
+        return volunteerCache;
+    }
+    
+    public PlayerNameIndex getPlayerNameIndex() {
+        return playerNameIndex;
+    }
+    
+    public ActivePunishmentIndex getActivePunishments() {
+        return activePunishments;
+    }
+    
+    public PunishmentExpiryTask getExpiryTask() {
+        return expiryTask;
+    }
+    
+    public PunishmentSync getPunishmentSync() {
+        return punishmentSync;
+    }
+    
+    public VanillaBanMirror getVanillaBanMirror() {
+        return vanillaBanMirror;
+    }
+    
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * 在主线程上执行任务的 Executor，用于在异步链中调用 Bukkit API
+     */
+    public MainThreadExecutor getMainThreadExecutor() {
+        return mainThreadExecutor;
+    }
 }
\ No newline at end of file
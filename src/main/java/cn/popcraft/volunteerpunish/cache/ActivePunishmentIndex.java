@@ -0,0 +1,264 @@
+package cn.popcraft.volunteerpunish.cache;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.database.SqlDialect;
+import cn.popcraft.volunteerpunish.model.Punishment;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 所有生效处罚的常驻内存索引（包括离线玩家）
+ * 启动时从数据库加载，之后由封禁/禁言/解除/到期的各个路径同步更新，isBanned/isMuted 不再访问数据库
+ * 其他服务器共用数据库时，它们的处罚不一定能通过跨服同步得知，见 isAuthoritative
+ *
+ * 使用开放寻址（线性探测）哈希表，UUID 拆成两个 long 存储，每个条目不创建 UUID/Date 对象
+ */
+public class ActivePunishmentIndex {
+    private static final byte BAN = 1;
+    private static final byte MUTE = 2;
+    private static final long PERMANENT = Long.MAX_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final VolunteerPunish plugin;
+
+    // 各数组下标一一对应，flags 为 0 表示空槽
+    private long[] mostBits;
+    private long[] leastBits;
+    private byte[] flags;
+    private long[] banUntil;
+    private long[] muteUntil;
+    private int size;
+
+    private volatile boolean loaded = false;
+    // 加载期间解除的处罚，加载完成后重新应用，避免被查询到的旧记录覆盖
+    private List<Map.Entry<UUID, Punishment.Type>> removedWhileLoading = new ArrayList<>();
+
+    public ActivePunishmentIndex(VolunteerPunish plugin) {
+        this.plugin = plugin;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 从数据库加载所有生效的处罚
+     */
+    public CompletableFuture<Void> load() {
+        return plugin.getDatabase().getActivePunishments().thenAccept(punishments -> {
+            synchronized (this) {
+                for (Punishment punishment : punishments) {
+                    put(punishment.getTargetUuid(), punishment.getType(), punishment.getExpiresAt());
+                }
+                List<Map.Entry<UUID, Punishment.Type>> removals = removedWhileLoading;
+                removedWhileLoading = null;
+                for (Map.Entry<UUID, Punishment.Type> removed : removals) {
+                    remove(removed.getKey(), removed.getValue());
+                }
+                loaded = true;
+            }
+            plugin.getLogger().info("已加载 " + punishments.size() + " 条生效的处罚记录");
+        });
+    }
+
+    /**
+     * 加载完成后索引才是完整的，之前的查询需要访问数据库
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 索引中没有处罚时能否直接认定玩家未被处罚
+     * 嵌入式数据库（SQLite）只属于本服务器；MySQL 可能被多个服务器共用，跨服同步的消息可能丢失，
+     * 索引中没有的处罚仍需查询数据库确认
+     */
+    public boolean isAuthoritative() {
+        if (!loaded) {
+            return false;
+        }
+        SqlDialect dialect = plugin.getDatabase().getDialect();
+        return dialect != null && dialect.isEmbedded();
+    }
+
+    /**
+     * 记录一条生效的处罚，已有同类处罚时保留更晚的到期时间
+     * @param expiresAt 到期时间，null表示永久
+     */
+    public synchronized void put(UUID uuid, Punishment.Type type, Date expiresAt) {
+        long until = expiresAt != null ? expiresAt.getTime() : PERMANENT;
+        if (removedWhileLoading != null) {
+            removedWhileLoading.removeIf(removed -> removed.getKey().equals(uuid) && removed.getValue() == type);
+        }
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int slot = find(msb, lsb);
+        if (flags[slot] == 0) {
+            if ((size + 1) * 2 > flags.length) {
+                resize(flags.length * 2);
+                slot = find(msb, lsb);
+            }
+            mostBits[slot] = msb;
+            leastBits[slot] = lsb;
+            size++;
+        }
+        if (type == Punishment.Type.BAN) {
+            banUntil[slot] = (flags[slot] & BAN) != 0 ? Math.max(banUntil[slot], until) : until;
+            flags[slot] |= BAN;
+        } else {
+            muteUntil[slot] = (flags[slot] & MUTE) != 0 ? Math.max(muteUntil[slot], until) : until;
+            flags[slot] |= MUTE;
+        }
+    }
+
+    /**
+     * 处罚被解除时移除
+     */
+    public synchronized void remove(UUID uuid, Punishment.Type type) {
+        if (removedWhileLoading != null) {
+            removedWhileLoading.add(new AbstractMap.SimpleEntry<>(uuid, type));
+        }
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (flags[slot] != 0) {
+            clear(slot, type);
+        }
+    }
+
+    /**
+     * 处罚到期时移除（期间被延长的处罚保留）
+     */
+    public synchronized void expire(UUID uuid, Punishment.Type type, long now) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (flags[slot] != 0 && until(slot, type) <= now) {
+            clear(slot, type);
+        }
+    }
+
+    /**
+     * 玩家当前是否有指定类型的生效处罚
+     */
+    public synchronized boolean isActive(UUID uuid, Punishment.Type type) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (flags[slot] == 0) {
+            return false;
+        }
+        long until = until(slot, type);
+        return until == PERMANENT || until > System.currentTimeMillis();
+    }
+
+    /**
+     * 生效处罚的摘要，只有类型和到期时间（时长为剩余时间），没有生效的处罚时为null
+     * 用于数据库中还查不到该处罚时（写入尚未完成、副本延迟）生成提示消息
+     */
+    public synchronized Punishment getActive(UUID uuid, Punishment.Type type) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (flags[slot] == 0) {
+            return null;
+        }
+        long until = until(slot, type);
+        long now = System.currentTimeMillis();
+        if (until != PERMANENT && until <= now) {
+            return null;
+        }
+        Punishment punishment = new Punishment();
+        punishment.setTargetUuid(uuid);
+        punishment.setType(type);
+        punishment.setActive(true);
+        if (until != PERMANENT) {
+            punishment.setExpiresAt(new Date(until));
+            punishment.setDuration(Math.max(1L, (until - now) / 1000L));
+        }
+        return punishment;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private long until(int slot, Punishment.Type type) {
+        if (type == Punishment.Type.BAN) {
+            return (flags[slot] & BAN) != 0 ? banUntil[slot] : 0L;
+        }
+        return (flags[slot] & MUTE) != 0 ? muteUntil[slot] : 0L;
+    }
+
+    private void clear(int slot, Punishment.Type type) {
+        flags[slot] &= type == Punishment.Type.BAN ? ~BAN : ~MUTE;
+        if (flags[slot] == 0) {
+            size--;
+            shiftBack(slot);
+        }
+    }
+
+    /**
+     * 返回该 UUID 所在的槽，不存在时返回探测序列上的第一个空槽
+     */
+    private int find(long msb, long lsb) {
+        int mask = flags.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (flags[slot] != 0 && (mostBits[slot] != msb || leastBits[slot] != lsb)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * 删除后把探测序列中后面的条目前移，保持线性探测不需要墓碑标记
+     */
+    private void shiftBack(int empty) {
+        int mask = flags.length - 1;
+        int slot = (empty + 1) & mask;
+        while (flags[slot] != 0) {
+            int home = hash(mostBits[slot], leastBits[slot]) & mask;
+            // 条目的理想位置不在 (empty, slot] 区间内时才能前移到空槽
+            if (((slot - home) & mask) >= ((slot - empty) & mask)) {
+                mostBits[empty] = mostBits[slot];
+                leastBits[empty] = leastBits[slot];
+                flags[empty] = flags[slot];
+                banUntil[empty] = banUntil[slot];
+                muteUntil[empty] = muteUntil[slot];
+                flags[slot] = 0;
+                empty = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldMost = mostBits;
+        long[] oldLeast = leastBits;
+        byte[] oldFlags = flags;
+        long[] oldBan = banUntil;
+        long[] oldMute = muteUntil;
+        allocate(capacity);
+        for (int i = 0; i < oldFlags.length; i++) {
+            if (oldFlags[i] != 0) {
+                int slot = find(oldMost[i], oldLeast[i]);
+                mostBits[slot] = oldMost[i];
+                leastBits[slot] = oldLeast[i];
+                flags[slot] = oldFlags[i];
+                banUntil[slot] = oldBan[i];
+                muteUntil[slot] = oldMute[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostBits = new long[capacity];
+        leastBits = new long[capacity];
+        flags = new byte[capacity];
+        banUntil = new long[capacity];
+        muteUntil = new long[capacity];
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
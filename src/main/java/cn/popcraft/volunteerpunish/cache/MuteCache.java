@@ -0,0 +1,128 @@
+package cn.popcraft.volunteerpunish.cache;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.metrics.CacheStats;
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在线玩家的禁言状态缓存
+ * 玩家加入时加载，禁言/解除禁言时更新，退出时移除，聊天检查只读内存
+ */
+public class MuteCache {
+    private static final long NOT_MUTED = 0L;
+    private static final long PERMANENT = Long.MAX_VALUE;
+
+    private final VolunteerPunish plugin;
+    // 玩家UUID -> 禁言到期时间（毫秒），NOT_MUTED表示未禁言，PERMANENT表示永久
+    private final Map<UUID, Long> mutedUntil = new ConcurrentHashMap<>();
+    private final CacheStats stats;
+
+    public MuteCache(VolunteerPunish plugin) {
+        this.plugin = plugin;
+        this.stats = plugin.getMetrics().cache("mute");
+    }
+
+    /**
+     * 从数据库加载玩家当前的禁言状态
+     * @param uuid 玩家UUID
+     * @return 当前生效的禁言记录，没有则为null
+     */
+    public CompletableFuture<Punishment> load(UUID uuid) {
+        // 生效处罚索引完整且其中没有禁言时无需查询数据库
+        ActivePunishmentIndex index = plugin.getActivePunishments();
+        if (index != null && index.isAuthoritative() && !index.isActive(uuid, Punishment.Type.MUTE)) {
+            track(uuid, null);
+            return CompletableFuture.completedFuture(null);
+        }
+        return plugin.getDatabase().getActivePunishment(uuid, Punishment.Type.MUTE)
+            .thenApply(punishment -> {
+                // 查询期间玩家可能已经退出，此时不再缓存
+                Player player = Bukkit.getPlayer(uuid);
+                if (player != null && player.isOnline()) {
+                    track(uuid, punishment);
+                }
+                return punishment;
+            });
+    }
+
+    /**
+     * 根据已查询到的禁言记录开始跟踪玩家
+     * @param uuid 玩家UUID
+     * @param activeMute 当前生效的禁言记录，没有则为null
+     */
+    public void track(UUID uuid, Punishment activeMute) {
+        if (activeMute == null) {
+            mutedUntil.put(uuid, NOT_MUTED);
+        } else {
+            mutedUntil.put(uuid, toMillis(activeMute.getExpiresAt()));
+        }
+    }
+
+    /**
+     * 玩家被禁言时更新缓存（仅对已跟踪的在线玩家生效）
+     * @param uuid 玩家UUID
+     * @param expiresAt 到期时间，null表示永久
+     */
+    public void mute(UUID uuid, Date expiresAt) {
+        long until = toMillis(expiresAt);
+        mutedUntil.computeIfPresent(uuid, (key, current) -> Math.max(current, until));
+    }
+
+    /**
+     * 玩家被解除禁言时更新缓存（仅对已跟踪的在线玩家生效）
+     */
+    public void unmute(UUID uuid) {
+        mutedUntil.computeIfPresent(uuid, (key, current) -> NOT_MUTED);
+    }
+
+    /**
+     * 玩家退出时停止跟踪
+     */
+    public void remove(UUID uuid) {
+        mutedUntil.remove(uuid);
+    }
+
+    public void clear() {
+        mutedUntil.clear();
+    }
+
+    /**
+     * 是否已加载该玩家的禁言状态
+     */
+    public boolean isTracked(UUID uuid) {
+        return mutedUntil.containsKey(uuid);
+    }
+
+    /**
+     * 纯内存检查玩家是否被禁言，未跟踪的玩家视为未禁言
+     */
+    public boolean isMuted(UUID uuid) {
+        Long until = mutedUntil.get(uuid);
+        if (until == null) {
+            stats.miss();
+            return false;
+        }
+        stats.hit();
+        if (until == NOT_MUTED) {
+            return false;
+        }
+        if (until != PERMANENT && until <= System.currentTimeMillis()) {
+            // 本地到期，直接标记为未禁言
+            mutedUntil.replace(uuid, until, NOT_MUTED);
+            return false;
+        }
+        return true;
+    }
+
+    private static long toMillis(Date expiresAt) {
+        return expiresAt != null ? expiresAt.getTime() : PERMANENT;
+    }
+}
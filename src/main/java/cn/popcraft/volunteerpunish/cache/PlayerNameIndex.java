@@ -0,0 +1,71 @@
+package cn.popcraft.volunteerpunish.cache;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 玩家名前缀索引，用于命令的玩家名补全
+ * 启动时异步构建，玩家加入时更新，避免每次补全都遍历 getOfflinePlayers()
+ */
+public class PlayerNameIndex {
+    private final VolunteerPunish plugin;
+    // 小写玩家名 -> 原始玩家名，按字典序排列以支持前缀范围查询
+    private final ConcurrentSkipListMap<String, String> names = new ConcurrentSkipListMap<>();
+    
+    public PlayerNameIndex(VolunteerPunish plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * 异步读取所有曾经进入过服务器的玩家并构建索引
+     */
+    public void buildAsync() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            long start = System.currentTimeMillis();
+            OfflinePlayer[] players = Bukkit.getOfflinePlayers();
+            for (OfflinePlayer player : players) {
+                add(player.getName());
+            }
+            plugin.getLogger().info("玩家名索引构建完成，共 " + names.size() + " 名玩家，耗时 " +
+                (System.currentTimeMillis() - start) + " 毫秒");
+        });
+    }
+    
+    public void add(String name) {
+        if (name != null && !name.isEmpty()) {
+            names.put(name.toLowerCase(Locale.ROOT), name);
+        }
+    }
+    
+    /**
+     * 按前缀查找玩家名（不区分大小写）
+     * @param prefix 已输入的前缀
+     * @param limit 最多返回的数量
+     */
+    public List<String> complete(String prefix, int limit) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        NavigableMap<String, String> range = lowerPrefix.isEmpty()
+                ? names
+                : names.subMap(lowerPrefix, true, lowerPrefix + Character.MAX_VALUE, false);
+        
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (String name : range.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(name);
+        }
+        return result;
+    }
+    
+    public int size() {
+        return names.size();
+    }
+}
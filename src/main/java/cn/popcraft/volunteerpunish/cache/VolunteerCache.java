@@ -0,0 +1,228 @@
+package cn.popcraft.volunteerpunish.cache;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.metrics.CacheStats;
+import cn.popcraft.volunteerpunish.model.Punishment;
+import cn.popcraft.volunteerpunish.model.Volunteer;
+import cn.popcraft.volunteerpunish.util.QuotaWindow;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 志愿者信息缓存，同时按UUID和志愿者ID索引
+ * 启动时加载全部志愿者，玩家加入时刷新，设置/移除志愿者、修改身份组时同步更新
+ * 配额计数在读取时按当前配额窗口惰性清零，与数据库中 tryConsumeQuota 的重置规则一致
+ */
+public class VolunteerCache {
+    private final VolunteerPunish plugin;
+    private final Map<UUID, Volunteer> byUuid = new ConcurrentHashMap<>();
+    private final Map<String, Volunteer> byVolunteerId = new ConcurrentHashMap<>();
+    // 全部志愿者加载完成后，缓存未命中即可认定不是志愿者
+    private volatile boolean complete = false;
+    private final CacheStats stats;
+    
+    public VolunteerCache(VolunteerPunish plugin) {
+        this.plugin = plugin;
+        this.stats = plugin.getMetrics().cache("volunteer");
+    }
+    
+    /**
+     * 从数据库加载全部志愿者
+     */
+    public CompletableFuture<Void> loadAll() {
+        return plugin.getDatabase().getAllVolunteers().thenAccept(volunteers -> {
+            byUuid.clear();
+            byVolunteerId.clear();
+            for (Volunteer volunteer : volunteers) {
+                put(volunteer);
+            }
+            complete = true;
+            plugin.getLogger().info("已缓存 " + volunteers.size() + " 名志愿者");
+        });
+    }
+    
+    /**
+     * 从数据库重新加载指定玩家的志愿者信息
+     * 只有数据库中确实没有该玩家时才移除缓存，查询失败时保留原有条目，返回的 future 异常完成
+     */
+    public CompletableFuture<Volunteer> refresh(UUID uuid) {
+        return plugin.getDatabase().getVolunteerByUuid(uuid).thenApply(volunteer -> {
+            if (volunteer != null) {
+                put(volunteer);
+            } else {
+                invalidate(uuid);
+            }
+            return volunteer;
+        });
+    }
+    
+    /**
+     * 按UUID获取志愿者，缓存未命中且缓存不完整时查询数据库
+     * @return 志愿者信息，不是志愿者则为null
+     */
+    public CompletableFuture<Volunteer> get(UUID uuid) {
+        Volunteer volunteer = byUuid.get(uuid);
+        if (volunteer != null || complete) {
+            stats.hit();
+            return CompletableFuture.completedFuture(normalize(volunteer));
+        }
+        stats.miss();
+        return refresh(uuid);
+    }
+    
+    /**
+     * 按志愿者ID获取志愿者，缓存未命中且缓存不完整时查询数据库
+     * @return 志愿者信息，不存在则为null
+     */
+    public CompletableFuture<Volunteer> getByVolunteerId(String volunteerId) {
+        Volunteer volunteer = byVolunteerId.get(volunteerId);
+        if (volunteer != null || complete) {
+            stats.hit();
+            return CompletableFuture.completedFuture(normalize(volunteer));
+        }
+        stats.miss();
+        return plugin.getDatabase().getVolunteerByVolunteerId(volunteerId).thenApply(loaded -> {
+            if (loaded != null) {
+                put(loaded);
+            }
+            return loaded;
+        });
+    }
+    
+    /**
+     * 仅从内存获取志愿者，不访问数据库
+     */
+    public Volunteer getIfPresent(UUID uuid) {
+        return normalize(byUuid.get(uuid));
+    }
+    
+    /**
+     * 缓存中是否能确定该玩家的志愿者状态
+     */
+    public boolean isKnown(UUID uuid) {
+        return complete || byUuid.containsKey(uuid);
+    }
+    
+    /**
+     * 写入或更新志愿者信息
+     */
+    public void put(Volunteer volunteer) {
+        normalize(volunteer);
+        byUuid.put(volunteer.getUuid(), volunteer);
+        // 志愿者ID可能已被修改（缓存中的对象可能被直接修改），移除该玩家的旧ID索引
+        byVolunteerId.entrySet().removeIf(entry -> entry.getValue().getUuid().equals(volunteer.getUuid())
+                && !entry.getKey().equals(volunteer.getVolunteerId()));
+        if (volunteer.getVolunteerId() != null) {
+            byVolunteerId.put(volunteer.getVolunteerId(), volunteer);
+        }
+    }
+    
+    /**
+     * 移除指定玩家的志愿者信息
+     */
+    public void invalidate(UUID uuid) {
+        byUuid.remove(uuid);
+        byVolunteerId.values().removeIf(volunteer -> volunteer.getUuid().equals(uuid));
+    }
+    
+    /**
+     * 清空缓存并重新加载
+     */
+    public CompletableFuture<Void> invalidateAll() {
+        complete = false;
+        return loadAll();
+    }
+    
+    /**
+     * 在数据库中只修改志愿者ID，成功后再更新缓存；数据库中已没有该志愿者时从缓存移除
+     * @return 志愿者存在且修改成功时为true
+     */
+    public CompletableFuture<Boolean> updateVolunteerId(UUID uuid, String volunteerId) {
+        return plugin.getDatabase().updateVolunteerId(uuid, volunteerId).thenApply(updated -> {
+            Volunteer volunteer = byUuid.get(uuid);
+            if (!updated) {
+                invalidate(uuid);
+            } else if (volunteer != null) {
+                synchronized (volunteer) {
+                    volunteer.setVolunteerId(volunteerId);
+                }
+                put(volunteer);
+            }
+            return updated;
+        });
+    }
+    
+    /**
+     * 在数据库中只修改志愿者的身份组，成功后再更新缓存；数据库中已没有该志愿者时从缓存移除
+     * @return 志愿者存在且修改成功时为true
+     */
+    public CompletableFuture<Boolean> updateGroup(UUID uuid, String groupName) {
+        return plugin.getDatabase().updateVolunteerGroup(uuid, groupName).thenApply(updated -> {
+            Volunteer volunteer = byUuid.get(uuid);
+            if (!updated) {
+                invalidate(uuid);
+            } else if (volunteer != null) {
+                synchronized (volunteer) {
+                    volunteer.setGroupName(groupName);
+                }
+            }
+            return updated;
+        });
+    }
+    
+    /**
+     * 在数据库中原子性地消耗配额，成功后同步更新缓存中的计数
+     */
+    public CompletableFuture<Boolean> tryConsumeQuota(UUID uuid, Punishment.Type type, int limit) {
+        Timestamp windowStart = currentWindowStart();
+        return plugin.getDatabase().tryConsumeQuota(uuid, type, limit, windowStart).thenApply(success -> {
+            Volunteer volunteer = byUuid.get(uuid);
+            if (success && volunteer != null) {
+                synchronized (volunteer) {
+                    resetIfExpired(volunteer, windowStart);
+                    if (type == Punishment.Type.BAN) {
+                        volunteer.setDailyBanUsed(volunteer.getDailyBanUsed() + 1);
+                    } else {
+                        volunteer.setDailyMuteUsed(volunteer.getDailyMuteUsed() + 1);
+                    }
+                }
+            }
+            return success;
+        });
+    }
+    
+    /**
+     * 当前配额窗口的起点，未启用每日重置时为null
+     */
+    private Timestamp currentWindowStart() {
+        if (!plugin.getConfigManager().isEnableDailyReset()) {
+            return null;
+        }
+        return QuotaWindow.currentStart(plugin.getConfigManager().getResetZone());
+    }
+    
+    private Volunteer normalize(Volunteer volunteer) {
+        if (volunteer != null) {
+            Timestamp windowStart = currentWindowStart();
+            synchronized (volunteer) {
+                resetIfExpired(volunteer, windowStart);
+            }
+        }
+        return volunteer;
+    }
+    
+    /**
+     * 上次重置早于当前窗口时清零计数（只修改内存，数据库在下次消耗配额时同步重置）
+     */
+    private static void resetIfExpired(Volunteer volunteer, Timestamp windowStart) {
+        if (windowStart != null && QuotaWindow.isExpired(volunteer.getLastReset(), windowStart)) {
+            volunteer.setDailyBanUsed(0);
+            volunteer.setDailyMuteUsed(0);
+            volunteer.setLastReset(windowStart);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package cn.popcraft.volunteerpunish.command;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
 
 public abstract class BaseCommand implements CommandExecutor, TabCompleter {
     protected final VolunteerPunish plugin;
@@ -32,4 +39,53 @@ public abstract class BaseCommand implements CommandExecutor, TabCompleter {
     protected List<String> tabComplete(CommandSender sender, Command command, String alias, String[] args) {
         return Collections.emptyList();
     }
+    
+    /**
+     * 从玩家名索引中补全玩家名
+     */
+    protected List<String> completePlayerNames(String prefix) {
+        return plugin.getPlayerNameIndex().complete(prefix, plugin.getConfigManager().getTabCompleteMaxResults());
+    }
+    
+    /**
+     * 按玩家名查找UUID，在线玩家直接返回，其他玩家在异步线程中查找
+     * 按名称查找离线玩家可能需要访问 Mojang API，不能在主线程中执行
+     * @param requirePlayedBefore 是否要求玩家曾经进入过服务器
+     * @return 玩家的UUID，找不到时为null
+     */
+    protected CompletableFuture<UUID> resolvePlayerAsync(String name, boolean requirePlayedBefore) {
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            return CompletableFuture.completedFuture(online.getUniqueId());
+        }
+        
+        CompletableFuture<UUID> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                OfflinePlayer player = Bukkit.getOfflinePlayer(name);
+                boolean found = player != null && (!requirePlayedBefore || player.hasPlayedBefore());
+                future.complete(found ? player.getUniqueId() : null);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * 主线程 Executor，异步链中调用 Bukkit API 的步骤使用 thenAcceptAsync(..., mainThread())
+     */
+    protected Executor mainThread() {
+        return plugin.getMainThreadExecutor();
+    }
+    
+    /**
+     * 在主线程上向执行者报告错误并记录日志
+     */
+    protected void reportError(CommandSender sender, String message, Throwable throwable) {
+        mainThread().execute(() -> {
+            sender.sendMessage("§c" + message);
+            plugin.getLogger().log(Level.SEVERE, message, throwable);
+        });
+    }
 }
\ No newline at end of file
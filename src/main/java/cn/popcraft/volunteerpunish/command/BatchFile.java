@@ -0,0 +1,106 @@
+package cn.popcraft.volunteerpunish.command;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * 批量命令使用的 CSV 文件（位于插件目录）
+ * 每行一条记录，字段以逗号分隔，忽略空行和以 # 开头的注释行
+ */
+final class BatchFile {
+    private BatchFile() {
+    }
+
+    /**
+     * 判断命令参数是否为批量模式：batch <文件名.csv>
+     */
+    static boolean isBatch(String[] args) {
+        return args.length == 3 && args[1].equalsIgnoreCase("batch") && args[2].toLowerCase().endsWith(".csv");
+    }
+
+    /**
+     * 在异步线程中读取并解析批量文件
+     * 返回的 future 在该异步线程中完成，后续阶段可以直接执行玩家名解析等耗时操作
+     */
+    static CompletableFuture<List<String[]>> readAsync(VolunteerPunish plugin, String fileName) {
+        CompletableFuture<List<String[]>> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                future.complete(read(plugin.getDataFolder(), fileName));
+            } catch (IOException | IllegalArgumentException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private static List<String[]> read(File dataFolder, String fileName) throws IOException {
+        File file = new File(dataFolder, fileName);
+        // 只允许读取插件目录内的文件
+        if (!file.getCanonicalPath().startsWith(dataFolder.getCanonicalPath() + File.separator)) {
+            throw new IllegalArgumentException("批量文件必须位于插件目录中: " + fileName);
+        }
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("批量文件不存在: " + fileName);
+        }
+
+        List<String[]> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split(",");
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = fields[i].trim();
+            }
+            rows.add(fields);
+        }
+        return rows;
+    }
+
+    /**
+     * 将玩家名或 UUID 解析为 UUID，玩家从未进入过服务器时返回 null
+     * 按玩家名查找可能需要访问 Mojang API，不要在主线程中调用
+     */
+    static UUID resolve(String nameOrUuid) {
+        try {
+            return UUID.fromString(nameOrUuid);
+        } catch (IllegalArgumentException ignored) {
+            // 不是 UUID，按玩家名查找
+        }
+        OfflinePlayer player = Bukkit.getOfflinePlayer(nameOrUuid);
+        if (player == null || !player.hasPlayedBefore()) {
+            return null;
+        }
+        return player.getUniqueId();
+    }
+
+    /**
+     * 创建进度回调，每完成约 10% 在主线程向命令发送者报告一次
+     */
+    static BiConsumer<Integer, Integer> progressReporter(CommandSender sender, Executor mainThread, String action) {
+        AtomicInteger reportedStep = new AtomicInteger();
+        return (done, total) -> {
+            int step = done * 10 / total;
+            int previous = reportedStep.get();
+            if (step > previous && step < 10 && reportedStep.compareAndSet(previous, step)) {
+                mainThread.execute(() -> sender.sendMessage("§7" + action + "进度: " + done + "/" + total));
+            }
+        };
+    }
+}
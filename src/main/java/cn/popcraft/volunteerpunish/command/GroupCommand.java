@@ -2,14 +2,12 @@ package cn.popcraft.volunteerpunish.command;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
 import cn.popcraft.volunteerpunish.config.ConfigManager;
-import cn.popcraft.volunteerpunish.model.Volunteer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 public class GroupCommand extends BaseCommand {
     public GroupCommand(VolunteerPunish plugin) {
@@ -28,34 +26,25 @@ public class GroupCommand extends BaseCommand {
             
             Player player = (Player) sender;
             
-            // 异步获取志愿者信息
-            CompletableFuture.runAsync(() -> {
-                try {
-                    Volunteer volunteer = plugin.getDatabase().getVolunteerByUuid(player.getUniqueId()).join();
+            // 异步获取志愿者信息，回到主线程发送消息
+            plugin.getVolunteerCache().get(player.getUniqueId()).thenAcceptAsync(volunteer -> {
+                if (volunteer == null) {
+                    player.sendMessage("§c你不是志愿者");
+                } else {
+                    player.sendMessage("§a你的身份组: §e" + volunteer.getGroupName());
 
-                    // 在主线程中发送消息
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        if (volunteer == null) {
-                            player.sendMessage("§c你不是志愿者");
-                        } else {
-                            player.sendMessage("§a你的身份组: §e" + volunteer.getGroupName());
+                    // 显示组的详细信息
+                    ConfigManager.GroupConfig groupConfig = plugin.getConfigManager().getGroups()
+                        .get(volunteer.getGroupName());
 
-                            // 显示组的详细信息
-                            ConfigManager.GroupConfig groupConfig = plugin.getConfigManager().getGroups()
-                                .get(volunteer.getGroupName());
-
-                            if (groupConfig != null) {
-                                player.sendMessage("§a封禁配额: §e" + volunteer.getDailyBanUsed() + "/" + groupConfig.getBanQuota());
-                                player.sendMessage("§a禁言配额: §e" + volunteer.getDailyMuteUsed() + "/" + groupConfig.getMuteQuota());
-                            }
-                        }
-                    });
-                } catch (Exception e) {
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        player.sendMessage("§c查询身份组信息时发生错误");
-                        plugin.getLogger().severe("查询玩家 " + player.getName() + " 的身份组信息时发生错误: " + e.getMessage());
-                    });
+                    if (groupConfig != null) {
+                        player.sendMessage("§a封禁配额: §e" + volunteer.getDailyBanUsed() + "/" + groupConfig.getBanQuota());
+                        player.sendMessage("§a禁言配额: §e" + volunteer.getDailyMuteUsed() + "/" + groupConfig.getMuteQuota());
+                    }
                 }
+            }, mainThread()).exceptionally(throwable -> {
+                reportError(player, "查询身份组信息时发生错误", throwable);
+                return null;
             });
             return;
         }
@@ -78,34 +67,29 @@ public class GroupCommand extends BaseCommand {
                 return;
             }
 
-            // 异步处理修改组
-            CompletableFuture.runAsync(() -> {
-                try {
-                    // 获取目标玩家的志愿者信息
-                    Volunteer volunteer = plugin.getDatabase().getVolunteerByVolunteerId(targetName).join();
+            // 异步获取志愿者信息，保存完成后回到主线程发送消息
+            plugin.getVolunteerCache().getByVolunteerId(targetName).thenAcceptAsync(volunteer -> {
+                if (volunteer == null) {
+                    sender.sendMessage("§c未找到志愿者: " + targetName);
+                    return;
+                }
 
-                    if (volunteer == null) {
-                        plugin.getServer().getScheduler().runTask(plugin, () -> {
-                            sender.sendMessage("§c未找到志愿者: " + targetName);
-                        });
+                // 只修改身份组列，写入成功后才更新缓存，不会覆盖并发消耗的配额计数
+                String oldGroup = volunteer.getGroupName();
+                plugin.getVolunteerCache().updateGroup(volunteer.getUuid(), newGroupName).thenAcceptAsync(updated -> {
+                    if (!updated) {
+                        sender.sendMessage("§c未找到志愿者: " + targetName);
                         return;
                     }
-
-                    // 更新组
-                    String oldGroup = volunteer.getGroupName();
-                    volunteer.setGroupName(newGroupName);
-                    plugin.getDatabase().saveVolunteer(volunteer).join();
-
-                    // 在主线程中发送消息
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage("§a成功将志愿者 " + targetName + " 的身份组从 " + oldGroup + " 更改为 " + newGroupName);
-                    });
-                } catch (Exception e) {
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage("§c修改志愿者身份组时发生错误");
-                        plugin.getLogger().severe("修改志愿者 " + targetName + " 的身份组时发生错误: " + e.getMessage());
-                    });
-                }
+                    plugin.getPunishmentSync().publishVolunteerChange(volunteer.getUuid());
+                    sender.sendMessage("§a成功将志愿者 " + targetName + " 的身份组从 " + oldGroup + " 更改为 " + newGroupName);
+                }, mainThread()).exceptionally(throwable -> {
+                    reportError(sender, "修改志愿者身份组时发生错误", throwable);
+                    return null;
+                });
+            }, mainThread()).exceptionally(throwable -> {
+                reportError(sender, "修改志愿者身份组时发生错误", throwable);
+                return null;
             });
             return;
         }
@@ -2,20 +2,23 @@ package cn.popcraft.volunteerpunish.command;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
 import cn.popcraft.volunteerpunish.model.Punishment;
-import cn.popcraft.volunteerpunish.model.Volunteer;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
+import cn.popcraft.volunteerpunish.util.MessageTemplate;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 
-import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.WeakHashMap;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class HistoryCommand extends BaseCommand {
+    private static final MessageTemplate HISTORY_LINE = MessageTemplate.compile(
+            "&7[ID: {id}] &b{type} &f时长: &e{duration} &f原因: &e{reason} &f执行者: &e{volunteer_id} &f时间: &e{issued_at}");
+    // 每个命令执行者上一次查看的页面，用于游标分页（只在主线程中读写）
+    private final Map<CommandSender, PageCursor> cursors = new WeakHashMap<>();
+
     public HistoryCommand(VolunteerPunish plugin) {
         super(plugin);
     }
@@ -23,51 +26,84 @@ public class HistoryCommand extends BaseCommand {
     @Override
     protected void execute(CommandSender sender, Command command, String label, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage("§c用法: /vp history <玩家ID或名称>");
-            sender.sendMessage("§c示例: /vp history Notch");
-            sender.sendMessage("§c说明: 查看指定玩家的所有处罚记录");
+            sender.sendMessage("§c用法: /vp history <玩家ID或名称> [页码]");
+            sender.sendMessage("§c示例: /vp history Notch 2");
+            sender.sendMessage("§c说明: 分页查看指定玩家的处罚记录");
             return;
         }
 
         String target = args[1];
-        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(target);
-        UUID targetUuid = offlinePlayer.getUniqueId();
-        
-        // 检查玩家是否存在
-        if (offlinePlayer == null || !offlinePlayer.hasPlayedBefore()) {
-            sender.sendMessage("§c玩家不存在: " + target);
-            return;
+        int page = 1;
+        if (args.length > 2) {
+            try {
+                page = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                page = 0;
+            }
+            if (page < 1) {
+                sender.sendMessage("§c无效的页码: " + args[2]);
+                return;
+            }
+        }
+
+        // 在异步线程中解析玩家名，回到主线程后再读取游标并查询
+        int requestedPage = page;
+        resolvePlayerAsync(target, true).thenAcceptAsync(targetUuid -> {
+            if (targetUuid == null) {
+                sender.sendMessage("§c玩家不存在: " + target);
+                return;
+            }
+            showPage(sender, target, targetUuid, requestedPage);
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "查询历史记录时发生错误", throwable);
+            return null;
+        });
+    }
+
+    /**
+     * 查询并显示一页处罚记录（在主线程中调用）
+     */
+    private void showPage(CommandSender sender, String target, UUID targetUuid, int requestedPage) {
+        int pageSize = plugin.getConfigManager().getHistoryPageSize();
+
+        // 从该目标上一次查看的页面之后翻页时从其游标开始，否则从最新的记录开始，中间的页面按索引跳过
+        PageCursor cursor = cursors.get(sender);
+        CompletableFuture<List<Punishment>> pageFuture;
+        if (cursor != null && cursor.targetUuid.equals(targetUuid) && cursor.page < requestedPage) {
+            pageFuture = plugin.getDatabase().getPunishmentPageAfter(targetUuid, cursor.lastIssuedAt, cursor.lastId,
+                    (requestedPage - cursor.page - 1) * pageSize, pageSize);
+        } else {
+            pageFuture = plugin.getDatabase().getPunishmentPageAfter(targetUuid, null, 0, (requestedPage - 1) * pageSize, pageSize);
         }
 
-        // 异步查询历史记录
-        CompletableFuture<List<Punishment>> future = plugin.getDatabase().getPunishmentsByTargetUuid(targetUuid);
-        future.thenAccept(punishments -> {
-            // 回到主线程发送消息
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                if (punishments.isEmpty()) {
-                    sender.sendMessage("§a玩家 " + target + " 没有处罚记录");
-                    return;
-                }
+        // 异步查询当前页和总数，回到主线程发送消息并记录游标
+        CompletableFuture<Integer> countFuture = plugin.getDatabase().countPunishmentsByTargetUuid(targetUuid);
+        pageFuture.thenAcceptBothAsync(countFuture, (punishments, total) -> {
+            if (total == 0) {
+                sender.sendMessage("§a玩家 " + target + " 没有处罚记录");
+                return;
+            }
+
+            int totalPages = (total + pageSize - 1) / pageSize;
+            if (punishments.isEmpty()) {
+                sender.sendMessage("§c页码超出范围，玩家 " + target + " 的处罚记录共 " + totalPages + " 页");
+                return;
+            }
+
+            sender.sendMessage("§a玩家 §e" + target + " §a的处罚历史记录 §7(第 " + requestedPage + "/" + totalPages + " 页，共 " + total + " 条):");
 
-                sender.sendMessage("§a玩家 §e" + target + " §a的处罚历史记录:");
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            for (Punishment punishment : punishments) {
+                sender.sendMessage(HISTORY_LINE.render(punishment, "无"));
+            }
 
-                for (Punishment punishment : punishments) {
-                    String volunteerId = punishment.getVolunteerId();
-                    String type = punishment.getType() == Punishment.Type.BAN ? "封禁" : "禁言";
-                    String duration = punishment.getDuration() > 0 ? punishment.getDuration() + "秒" : "永久";
-                    String reason = punishment.getReason() != null ? punishment.getReason() : "无";
-                    String issuedAt = dateFormat.format(punishment.getIssuedAt());
-                    
-                    sender.sendMessage("§7[ID: " + punishment.getId() + "] §b" + type + " §f时长: §e" + duration + 
-                            " §f原因: §e" + reason + " §f执行者: §e" + volunteerId + " §f时间: §e" + issuedAt);
-                }
-            });
-        }).exceptionally(throwable -> {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                sender.sendMessage("§c查询历史记录时发生错误");
-                plugin.getLogger().severe("查询玩家 " + target + " 的处罚历史记录时发生错误: " + throwable.getMessage());
-            });
+            if (requestedPage < totalPages) {
+                sender.sendMessage("§7使用 /vp history " + target + " " + (requestedPage + 1) + " 查看下一页");
+            }
+
+            Punishment last = punishments.get(punishments.size() - 1);
+            cursors.put(sender, new PageCursor(targetUuid, requestedPage, last.getIssuedAt(), last.getId()));
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "查询历史记录时发生错误", throwable);
             return null;
         });
     }
@@ -75,14 +111,23 @@ public class HistoryCommand extends BaseCommand {
     @Override
     protected List<String> tabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 2) {
-            // 获取所有曾经玩过服务器的玩家
-            List<String> playerNames = Arrays.stream(Bukkit.getOfflinePlayers())
-                    .map(OfflinePlayer::getName)
-                    .filter(name -> name != null && name.toLowerCase().startsWith(args[1].toLowerCase()))
-                    .collect(Collectors.toList());
-
-            return playerNames;
+            // 从玩家名索引中补全曾经玩过服务器的玩家
+            return completePlayerNames(args[1]);
         }
         return super.tabComplete(sender, command, alias, args);
     }
+    
+    private static class PageCursor {
+        private final UUID targetUuid;
+        private final int page;
+        private final Date lastIssuedAt;
+        private final int lastId;
+        
+        PageCursor(UUID targetUuid, int page, Date lastIssuedAt, int lastId) {
+            this.targetUuid = targetUuid;
+            this.page = page;
+            this.lastIssuedAt = lastIssuedAt;
+            this.lastId = lastId;
+        }
+    }
 }
\ No newline at end of file
@@ -1,15 +1,18 @@
 package cn.popcraft.volunteerpunish.command;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
-import cn.popcraft.volunteerpunish.model.Volunteer;
+import cn.popcraft.volunteerpunish.hook.LuckPermsHook;
 import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public class RemoveIdCommand extends BaseCommand {
     public RemoveIdCommand(VolunteerPunish plugin) {
@@ -24,42 +27,50 @@ public class RemoveIdCommand extends BaseCommand {
             return;
         }
 
+        if (BatchFile.isBatch(args)) {
+            executeBatch(sender, args[2]);
+            return;
+        }
+
         if (args.length < 2) {
             sender.sendMessage("§c用法: /vp removeid <玩家>");
             sender.sendMessage("§c示例: /vp removeid Notch");
             sender.sendMessage("§c说明: 移除指定玩家的志愿者身份");
+            sender.sendMessage("§c批量: /vp removeid batch <文件.csv>（每行: 玩家）");
             return;
         }
 
         String targetName = args[1];
 
-        // 获取目标玩家
-        OfflinePlayer target = Bukkit.getOfflinePlayer(targetName);
-        if (target == null || !target.hasPlayedBefore()) {
-            sender.sendMessage("§c玩家不存在: " + targetName);
-            return;
-        }
+        // 异步解析目标玩家，回到主线程后再查询志愿者信息
+        resolvePlayerAsync(targetName, true).thenAcceptAsync(targetUuid -> {
+            if (targetUuid == null) {
+                sender.sendMessage("§c玩家不存在: " + targetName);
+                return;
+            }
+            removeVolunteer(sender, targetUuid, targetName);
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "移除志愿者身份时发生错误", throwable);
+            return null;
+        });
+    }
+
+    private void removeVolunteer(CommandSender sender, UUID targetUuid, String targetName) {
+        // 异步获取志愿者信息，删除完成后回到主线程处理权限和消息
+        plugin.getVolunteerCache().get(targetUuid).thenAcceptAsync(volunteer -> {
+            // 如果志愿者不存在
+            if (volunteer == null) {
+                sender.sendMessage("§c玩家 " + targetName + " 不是志愿者");
+                return;
+            }
+
+            // 删除志愿者记录
+            plugin.getDatabase().removeVolunteer(targetUuid).thenRunAsync(() -> {
+                plugin.getVolunteerCache().invalidate(targetUuid);
+                plugin.getPunishmentSync().publishVolunteerChange(targetUuid);
 
-        UUID targetUuid = target.getUniqueId();
-
-        // 异步处理移除志愿者ID
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 获取志愿者信息
-                Volunteer volunteer = plugin.getDatabase().getVolunteerByUuid(targetUuid).join();
-                
-                // 如果志愿者不存在
-                if (volunteer == null) {
-                    Bukkit.getScheduler().runTask(plugin, () -> 
-                        sender.sendMessage("§c玩家 " + targetName + " 不是志愿者"));
-                    return;
-                }
-                
-                // 删除志愿者记录
-                plugin.getDatabase().removeVolunteer(targetUuid).join();
-                
                 // 如果玩家在线，移除其权限
-                Player onlineTarget = target.getPlayer();
+                Player onlineTarget = Bukkit.getPlayer(targetUuid);
                 if (onlineTarget != null && onlineTarget.isOnline()) {
                     // 使用LuckPermsHook移除权限
                     if (plugin.getLuckPermsHook() != null) {
@@ -69,23 +80,89 @@ public class RemoveIdCommand extends BaseCommand {
                         onlineTarget.sendMessage("§a你已不再是志愿者！");
                     }
                 }
-                
-                Bukkit.getScheduler().runTask(plugin, () -> 
-                    sender.sendMessage("§a成功移除玩家 " + targetName + " 的志愿者身份"));
-            } catch (Exception e) {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    sender.sendMessage("§c移除志愿者身份时发生错误");
-                    plugin.getLogger().severe("移除玩家 " + targetName + " 的志愿者身份时发生错误: " + e.getMessage());
-                });
-            }
+
+                sender.sendMessage("§a成功移除玩家 " + targetName + " 的志愿者身份");
+            }, mainThread()).exceptionally(throwable -> {
+                reportError(sender, "移除志愿者身份时发生错误", throwable);
+                return null;
+            });
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "移除志愿者身份时发生错误", throwable);
+            return null;
         });
     }
     
+    /**
+     * 从插件目录中的 CSV 文件批量移除志愿者
+     * 先逐条删除志愿者记录，再通过 LuckPerms 批量移除权限并报告进度
+     */
+    private void executeBatch(CommandSender sender, String fileName) {
+        sender.sendMessage("§a正在读取批量文件 " + fileName + " ...");
+
+        BatchFile.readAsync(plugin, fileName).thenCompose(rows -> {
+            List<CompletableFuture<UUID>> removals = new ArrayList<>(rows.size());
+            for (String[] row : rows) {
+                UUID uuid = BatchFile.resolve(row[0]);
+                if (uuid == null) {
+                    plugin.getLogger().warning("批量移除志愿者时跳过无效行: " + String.join(",", row));
+                    removals.add(CompletableFuture.completedFuture(null));
+                    continue;
+                }
+                removals.add(removeBatchVolunteer(uuid));
+            }
+
+            return CompletableFuture.allOf(removals.toArray(new CompletableFuture[0])).thenCompose(v -> {
+                List<UUID> removed = removals.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                int skipped = rows.size() - removed.size();
+                mainThread().execute(() -> sender.sendMessage("§a已移除 " + removed.size() + " 名志愿者"
+                        + (skipped > 0 ? "，跳过 " + skipped + " 行（详见控制台）" : "")));
+
+                LuckPermsHook hook = plugin.getLuckPermsHook();
+                if (hook == null || !hook.isEnabled() || removed.isEmpty()) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                return hook.revokeVolunteerPermissions(removed, BatchFile.progressReporter(sender, mainThread(), "移除权限"))
+                        .thenAcceptAsync(result -> sender.sendMessage("§a权限移除完成: 成功 " + result.getSucceeded()
+                                + "，失败 " + result.getFailed()), mainThread());
+            });
+        }).exceptionally(throwable -> {
+            reportError(sender, "批量移除志愿者身份时发生错误", throwable);
+            return null;
+        });
+    }
+
+    /**
+     * 删除批量文件中的一名志愿者，成功时返回玩家 UUID，不是志愿者或失败时返回 null
+     */
+    private CompletableFuture<UUID> removeBatchVolunteer(UUID uuid) {
+        return plugin.getVolunteerCache().get(uuid).thenCompose(volunteer -> {
+            if (volunteer == null) {
+                plugin.getLogger().warning("批量移除志愿者时跳过玩家 " + uuid + "：不是志愿者");
+                return CompletableFuture.completedFuture((UUID) null);
+            }
+            return plugin.getDatabase().removeVolunteer(uuid).thenApply(v -> {
+                plugin.getVolunteerCache().invalidate(uuid);
+                plugin.getPunishmentSync().publishVolunteerChange(uuid);
+                return uuid;
+            });
+        }).exceptionally(throwable -> {
+            plugin.getLogger().warning("批量移除志愿者时删除玩家 " + uuid + " 失败: " + throwable.getMessage());
+            return null;
+        });
+    }
+
     @Override
     protected java.util.List<String> tabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 2) {
-            // 补全玩家名
-            return null; // 返回null让Bukkit自动补全在线玩家名
+            // 补全玩家名（使用玩家名索引）
+            List<String> completions = new ArrayList<>(completePlayerNames(args[1]));
+            if ("batch".startsWith(args[1].toLowerCase())) {
+                completions.add(0, "batch");
+            }
+            return completions;
         }
         return super.tabComplete(sender, command, alias, args);
     }
@@ -1,16 +1,18 @@
 package cn.popcraft.volunteerpunish.command;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.hook.LuckPermsHook;
 import cn.popcraft.volunteerpunish.model.Volunteer;
 import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -28,106 +30,211 @@ public class SetIdCommand extends BaseCommand {
             return;
         }
 
+        if (BatchFile.isBatch(args)) {
+            executeBatch(sender, args[2]);
+            return;
+        }
+
         if (args.length < 3) {
             sender.sendMessage("§c用法: /vp setid <玩家> <新ID>");
             sender.sendMessage("§c示例: /vp setid Notch 01");
             sender.sendMessage("§c说明: 为指定玩家设置志愿者ID");
+            sender.sendMessage("§c批量: /vp setid batch <文件.csv>（每行: 玩家,ID[,身份组]）");
             return;
         }
 
         String targetName = args[1];
         String newVolunteerId = args[2];
 
-        // 获取目标玩家
-        OfflinePlayer target = Bukkit.getOfflinePlayer(targetName);
-        if (target == null || !target.hasPlayedBefore()) {
-            sender.sendMessage("§c玩家不存在: " + targetName);
+        // 异步解析目标玩家，回到主线程后再查询志愿者信息
+        resolvePlayerAsync(targetName, true).thenAcceptAsync(targetUuid -> {
+            if (targetUuid == null) {
+                sender.sendMessage("§c玩家不存在: " + targetName);
+                return;
+            }
+            setVolunteerId(sender, targetUuid, targetName, newVolunteerId);
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "设置志愿者ID时发生错误", throwable);
+            return null;
+        });
+    }
+
+    private void setVolunteerId(CommandSender sender, UUID targetUuid, String targetName, String newVolunteerId) {
+        // 异步获取志愿者信息，保存完成后回到主线程发送消息
+        plugin.getVolunteerCache().get(targetUuid).thenAcceptAsync(volunteer -> {
+            // 如果志愿者不存在，则创建新的志愿者记录
+            if (volunteer == null) {
+                createVolunteer(sender, targetUuid, targetName, newVolunteerId);
+            } else {
+                updateVolunteerId(sender, targetUuid, targetName, volunteer.getVolunteerId(), newVolunteerId);
+            }
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "设置志愿者ID时发生错误", throwable);
+            return null;
+        });
+    }
+
+    private void createVolunteer(CommandSender sender, UUID targetUuid, String targetName, String newVolunteerId) {
+        // 获取默认组
+        String defaultGroup = plugin.getConfigManager().getDefaultGroupName();
+        if (defaultGroup == null) {
+            sender.sendMessage("§c错误：配置文件中没有定义任何身份组，无法创建志愿者记录");
+            plugin.getLogger().severe("配置文件中缺少身份组定义，请检查 config.yml");
             return;
         }
 
-        UUID targetUuid = target.getUniqueId();
-
-        // 异步处理设置志愿者ID
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 获取志愿者信息
-                Volunteer volunteer = plugin.getDatabase().getVolunteerByUuid(targetUuid).join();
-
-                // 如果志愿者不存在，则创建新的志愿者记录
-                if (volunteer == null) {
-                    // 获取默认组
-                    String defaultGroup = plugin.getConfigManager().getDefaultGroupName();
-                    if (defaultGroup == null) {
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            sender.sendMessage("§c错误：配置文件中没有定义任何身份组，无法创建志愿者记录");
-                            plugin.getLogger().severe("配置文件中缺少身份组定义，请检查 config.yml");
-                        });
-                        return;
-                    }
-                    
-                    volunteer = new Volunteer();
-                    volunteer.setUuid(targetUuid);
-                    volunteer.setVolunteerId(newVolunteerId);
-                    volunteer.setGroupName(defaultGroup); // 使用配置中的默认组
-                    volunteer.setDailyBanUsed(0);
-                    volunteer.setDailyMuteUsed(0);
-
-                    // 保存新的志愿者记录
-                    plugin.getDatabase().saveVolunteer(volunteer).join();
-                    
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage("§a成功为玩家 " + targetName + " 创建志愿者记录，ID设置为: " + newVolunteerId);
-                        
-                        // 如果玩家在线，给予权限
-                        Player onlineTarget = target.getPlayer();
-                        if (onlineTarget != null && onlineTarget.isOnline()) {
-                            // 使用LuckPermsHook添加权限
-                            if (plugin.getLuckPermsHook() != null) {
-                                plugin.getLuckPermsHook().addVolunteerPermissions(onlineTarget);
-                            } else {
-                                // 如果LuckPermsHook不可用，发送普通消息
-                                onlineTarget.sendMessage("§a你已成为志愿者！ID: " + newVolunteerId);
-                            }
-                        }
-                    });
+        Volunteer volunteer = new Volunteer();
+        volunteer.setUuid(targetUuid);
+        volunteer.setVolunteerId(newVolunteerId);
+        volunteer.setGroupName(defaultGroup); // 使用配置中的默认组
+        volunteer.setDailyBanUsed(0);
+        volunteer.setDailyMuteUsed(0);
+
+        // 保存新的志愿者记录
+        plugin.getDatabase().saveVolunteer(volunteer).thenRunAsync(() -> {
+            plugin.getVolunteerCache().put(volunteer);
+            plugin.getPunishmentSync().publishVolunteerChange(volunteer.getUuid());
+            sender.sendMessage("§a成功为玩家 " + targetName + " 创建志愿者记录，ID设置为: " + newVolunteerId);
+
+            // 如果玩家在线，给予权限
+            Player onlineTarget = Bukkit.getPlayer(targetUuid);
+            if (onlineTarget != null && onlineTarget.isOnline()) {
+                // 使用LuckPermsHook添加权限
+                if (plugin.getLuckPermsHook() != null) {
+                    plugin.getLuckPermsHook().addVolunteerPermissions(onlineTarget);
                 } else {
-                    // 更新现有的志愿者ID
-                    String oldVolunteerId = volunteer.getVolunteerId();
-                    volunteer.setVolunteerId(newVolunteerId);
-                    
-                    // 保存更新后的志愿者记录
-                    plugin.getDatabase().saveVolunteer(volunteer).join();
-                    
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        sender.sendMessage("§a成功将玩家 " + targetName + " 的志愿者ID从 " + oldVolunteerId + " 更改为 " + newVolunteerId);
-                        
-                        // 如果玩家在线，通知更新
-                        Player onlineTarget = target.getPlayer();
-                        if (onlineTarget != null && onlineTarget.isOnline()) {
-                            // 使用LuckPermsHook更新权限（实际上权限不会改变，只是通知）
-                            if (plugin.getLuckPermsHook() != null && plugin.getLuckPermsHook().isEnabled()) {
-                                onlineTarget.sendMessage("§a你的志愿者ID已更新为: " + newVolunteerId);
-                            } else {
-                                // 如果LuckPerms不可用，发送普通消息
-                                onlineTarget.sendMessage("§a你的志愿者ID已更新为: " + newVolunteerId);
-                            }
-                        }
-                    });
+                    // 如果LuckPermsHook不可用，发送普通消息
+                    onlineTarget.sendMessage("§a你已成为志愿者！ID: " + newVolunteerId);
                 }
-            } catch (Exception e) {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    sender.sendMessage("§c设置志愿者ID时发生错误");
-                    plugin.getLogger().severe("设置玩家 " + targetName + " 的志愿者ID时发生错误: " + e.getMessage());
-                });
             }
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "设置志愿者ID时发生错误", throwable);
+            return null;
+        });
+    }
+
+    private void updateVolunteerId(CommandSender sender, UUID targetUuid, String targetName, String oldVolunteerId, String newVolunteerId) {
+        // 只修改志愿者ID列，写入成功后才更新缓存，不会覆盖并发消耗的配额计数
+        plugin.getVolunteerCache().updateVolunteerId(targetUuid, newVolunteerId).thenAcceptAsync(updated -> {
+            if (!updated) {
+                sender.sendMessage("§c玩家 " + targetName + " 已不是志愿者，请重新执行命令");
+                return;
+            }
+            plugin.getPunishmentSync().publishVolunteerChange(targetUuid);
+            sender.sendMessage("§a成功将玩家 " + targetName + " 的志愿者ID从 " + oldVolunteerId + " 更改为 " + newVolunteerId);
+
+            // 如果玩家在线，通知更新
+            Player onlineTarget = Bukkit.getPlayer(targetUuid);
+            if (onlineTarget != null && onlineTarget.isOnline()) {
+                onlineTarget.sendMessage("§a你的志愿者ID已更新为: " + newVolunteerId);
+            }
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "设置志愿者ID时发生错误", throwable);
+            return null;
         });
     }
     
+    /**
+     * 从插件目录中的 CSV 文件批量设置志愿者
+     * 先逐条保存志愿者记录，再通过 LuckPerms 批量授予权限并报告进度
+     */
+    private void executeBatch(CommandSender sender, String fileName) {
+        sender.sendMessage("§a正在读取批量文件 " + fileName + " ...");
+
+        BatchFile.readAsync(plugin, fileName).thenCompose(rows -> {
+            List<CompletableFuture<UUID>> saves = new ArrayList<>(rows.size());
+            for (String[] row : rows) {
+                UUID uuid = row.length >= 2 && !row[1].isEmpty() ? BatchFile.resolve(row[0]) : null;
+                if (uuid == null) {
+                    plugin.getLogger().warning("批量设置志愿者时跳过无效行: " + String.join(",", row));
+                    saves.add(CompletableFuture.completedFuture(null));
+                    continue;
+                }
+                saves.add(saveBatchVolunteer(uuid, row[1], row.length > 2 && !row[2].isEmpty() ? row[2] : null));
+            }
+
+            return CompletableFuture.allOf(saves.toArray(new CompletableFuture[0])).thenCompose(v -> {
+                List<UUID> saved = saves.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                int skipped = rows.size() - saved.size();
+                mainThread().execute(() -> sender.sendMessage("§a已保存 " + saved.size() + " 名志愿者"
+                        + (skipped > 0 ? "，跳过 " + skipped + " 行（详见控制台）" : "")));
+
+                LuckPermsHook hook = plugin.getLuckPermsHook();
+                if (hook == null || !hook.isEnabled() || saved.isEmpty()) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                return hook.grantVolunteerPermissions(saved, BatchFile.progressReporter(sender, mainThread(), "授予权限"))
+                        .thenAcceptAsync(result -> sender.sendMessage("§a权限授予完成: 成功 " + result.getSucceeded()
+                                + "，失败 " + result.getFailed()), mainThread());
+            });
+        }).exceptionally(throwable -> {
+            reportError(sender, "批量设置志愿者ID时发生错误", throwable);
+            return null;
+        });
+    }
+
+    /**
+     * 保存批量文件中的一条志愿者记录，成功时返回玩家 UUID，失败时返回 null
+     */
+    private CompletableFuture<UUID> saveBatchVolunteer(UUID uuid, String volunteerId, String groupName) {
+        if (groupName != null && !plugin.getConfigManager().getGroups().containsKey(groupName)) {
+            plugin.getLogger().warning("批量设置志愿者时跳过玩家 " + uuid + "：身份组不存在: " + groupName);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return plugin.getVolunteerCache().get(uuid).thenCompose(existing -> {
+            if (existing != null) {
+                // 已有的志愿者只修改ID和身份组列，不覆盖配额计数
+                CompletableFuture<Boolean> update = plugin.getVolunteerCache().updateVolunteerId(uuid, volunteerId);
+                if (groupName != null) {
+                    update = update.thenCompose(updated -> updated
+                            ? plugin.getVolunteerCache().updateGroup(uuid, groupName)
+                            : CompletableFuture.completedFuture(false));
+                }
+                return update.thenApply(updated -> {
+                    if (!updated) {
+                        plugin.getLogger().warning("批量设置志愿者时跳过玩家 " + uuid + "：志愿者记录已被移除");
+                        return null;
+                    }
+                    plugin.getPunishmentSync().publishVolunteerChange(uuid);
+                    return uuid;
+                });
+            }
+
+            String group = groupName != null ? groupName : plugin.getConfigManager().getDefaultGroupName();
+            if (group == null) {
+                plugin.getLogger().severe("配置文件中缺少身份组定义，请检查 config.yml");
+                return CompletableFuture.completedFuture(null);
+            }
+            Volunteer volunteer = new Volunteer();
+            volunteer.setUuid(uuid);
+            volunteer.setGroupName(group);
+            volunteer.setVolunteerId(volunteerId);
+            volunteer.setDailyBanUsed(0);
+            volunteer.setDailyMuteUsed(0);
+            return plugin.getDatabase().saveVolunteer(volunteer).thenApply(v -> {
+                plugin.getVolunteerCache().put(volunteer);
+                plugin.getPunishmentSync().publishVolunteerChange(uuid);
+                return uuid;
+            });
+        }).exceptionally(throwable -> {
+            plugin.getLogger().warning("批量设置志愿者时保存玩家 " + uuid + " 失败: " + throwable.getMessage());
+            return null;
+        });
+    }
+
     @Override
     protected List<String> tabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 2) {
-            // 补全玩家名
-            return null; // 返回null让Bukkit自动补全在线玩家名
+            // 补全玩家名（使用玩家名索引）
+            List<String> completions = new ArrayList<>(completePlayerNames(args[1]));
+            if ("batch".startsWith(args[1].toLowerCase())) {
+                completions.add(0, "batch");
+            }
+            return completions;
         } else if (args.length == 3) {
             // 提供一些示例ID
             List<String> exampleIds = Arrays.asList("01", "02", "03", "04", "05", "06", "07", "08", "09", "10");
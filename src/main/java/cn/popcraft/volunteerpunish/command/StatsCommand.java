@@ -0,0 +1,100 @@
+package cn.popcraft.volunteerpunish.command;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.cache.ActivePunishmentIndex;
+import cn.popcraft.volunteerpunish.database.DatabaseExecutor;
+import cn.popcraft.volunteerpunish.database.DatabaseManager;
+import cn.popcraft.volunteerpunish.database.PunishmentWriteQueue;
+import cn.popcraft.volunteerpunish.metrics.CacheStats;
+import cn.popcraft.volunteerpunish.metrics.LatencyHistogram;
+import cn.popcraft.volunteerpunish.metrics.OperationStats;
+import cn.popcraft.volunteerpunish.task.VanillaBanMirror;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+import java.util.Locale;
+
+public class StatsCommand extends BaseCommand {
+
+    public StatsCommand(VolunteerPunish plugin) {
+        super(plugin);
+    }
+
+    @Override
+    protected void execute(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission("volunteerpunish.admin.stats")) {
+            sender.sendMessage("§c你没有权限执行此命令");
+            return;
+        }
+
+        DatabaseManager database = plugin.getDatabase();
+        sender.sendMessage("§e--------- §6VolunteerPunish 运行状态§e ---------");
+
+        // 连接池和线程池状态
+        HikariPoolMXBean pool = database.getPoolStats();
+        if (pool != null) {
+            sender.sendMessage("§a连接池: §f活跃 " + pool.getActiveConnections() + " §7| §f空闲 " + pool.getIdleConnections()
+                    + " §7| §f等待 " + pool.getThreadsAwaitingConnection());
+        }
+        HikariPoolMXBean readPool = database.getReadPoolStats();
+        if (readPool != null) {
+            sender.sendMessage("§a只读连接池: §f活跃 " + readPool.getActiveConnections() + " §7| §f空闲 " + readPool.getIdleConnections()
+                    + " §7| §f等待 " + readPool.getThreadsAwaitingConnection());
+        }
+        HikariPoolMXBean replicaPool = database.getReplicaPoolStats();
+        if (replicaPool != null) {
+            sender.sendMessage("§a只读副本连接池: §f活跃 " + replicaPool.getActiveConnections() + " §7| §f空闲 " + replicaPool.getIdleConnections()
+                    + " §7| §f等待 " + replicaPool.getThreadsAwaitingConnection());
+        }
+        DatabaseExecutor executor = database.getExecutor();
+        if (executor != null) {
+            sender.sendMessage("§a数据库线程池: §f" + executor.getThreads() + " 线程" + (executor.isVirtualThreads() ? "（虚拟线程）" : "")
+                    + " §7| §f排队 " + executor.getPendingCount() + " §7| §f拒绝 " + executor.getRejectedCount());
+        }
+        PunishmentWriteQueue writeQueue = database.getWriteQueue();
+        if (writeQueue != null) {
+            sender.sendMessage("§a写入队列: §f待写入 " + writeQueue.getPendingCount());
+        }
+        ActivePunishmentIndex activePunishments = plugin.getActivePunishments();
+        if (activePunishments != null) {
+            sender.sendMessage("§a生效处罚索引: §f" + (activePunishments.isLoaded()
+                    ? activePunishments.size() + " 名玩家" : "加载中"));
+        }
+        VanillaBanMirror vanillaBanMirror = plugin.getVanillaBanMirror();
+        if (vanillaBanMirror != null && plugin.getConfigManager().isVanillaMirrorEnabled()) {
+            sender.sendMessage("§a原版封禁列表同步: §f待写入 " + vanillaBanMirror.getPendingCount());
+        }
+
+        // 缓存命中率
+        for (CacheStats stats : plugin.getMetrics().getCaches()) {
+            sender.sendMessage("§a缓存 " + stats.getName() + ": §f命中 " + stats.getHits() + " §7| §f未命中 " + stats.getMisses()
+                    + " §7| §f命中率 " + percent(stats.getHitRate()));
+        }
+
+        // 数据库操作延迟
+        List<OperationStats> operations = plugin.getMetrics().getOperations();
+        if (operations.isEmpty()) {
+            sender.sendMessage("§7暂无数据库操作记录");
+            return;
+        }
+        sender.sendMessage("§6数据库操作 §7(次数 / p50 / p99 / 最大 / 错误)");
+        for (OperationStats stats : operations) {
+            LatencyHistogram latency = stats.getLatency();
+            sender.sendMessage("§a" + stats.getName() + ": §f" + stats.getCount()
+                    + " §7/ §f" + millis(latency.getPercentileNanos(0.5))
+                    + " §7/ §f" + millis(latency.getPercentileNanos(0.99))
+                    + " §7/ §f" + millis(latency.getMaxNanos())
+                    + " §7/ " + (stats.getErrors() > 0 ? "§c" : "§f") + stats.getErrors() + " (" + percent(stats.getErrorRate()) + ")");
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    private static String percent(double ratio) {
+        return String.format(Locale.ROOT, "%.1f%%", ratio * 100);
+    }
+}
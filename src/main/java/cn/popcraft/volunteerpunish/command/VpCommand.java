@@ -2,10 +2,10 @@ package cn.popcraft.volunteerpunish.command;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
 import cn.popcraft.volunteerpunish.config.ConfigManager;
+import cn.popcraft.volunteerpunish.hook.LuckPermsHook;
 import cn.popcraft.volunteerpunish.model.Punishment;
 import cn.popcraft.volunteerpunish.model.Volunteer;
 import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -17,14 +17,17 @@ import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class VpCommand extends BaseCommand {
+    private static final List<String> DEFAULT_DURATION_OPTIONS =
+            Collections.unmodifiableList(Arrays.asList("60", "300", "600", "3600", "86400", "604800", "permanent"));
+
     private final HistoryCommand historyCommand;
     private final SetIdCommand setIdCommand;
     private final RemoveIdCommand removeIdCommand;
     private final GroupCommand groupCommand;
+    private final StatsCommand statsCommand;
 
     public VpCommand(VolunteerPunish plugin) {
         super(plugin);
@@ -32,6 +35,7 @@ public class VpCommand extends BaseCommand {
         this.setIdCommand = new SetIdCommand(plugin);
         this.removeIdCommand = new RemoveIdCommand(plugin);
         this.groupCommand = new GroupCommand(plugin);
+        this.statsCommand = new StatsCommand(plugin);
     }
 
     @Override
@@ -71,6 +75,9 @@ public class VpCommand extends BaseCommand {
             case "group": // 添加对group命令的处理
                 groupCommand.execute(sender, command, label, args);
                 break;
+            case "stats":
+                statsCommand.execute(sender, command, label, args);
+                break;
             case "help":
                 sendHelpMessage(sender);
                 break;
@@ -85,7 +92,7 @@ public class VpCommand extends BaseCommand {
     protected List<String> tabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 1) {
             // 补全子命令
-            List<String> subCommands = Arrays.asList("ban", "mute", "unban", "unmute", "history", "setid", "removeid", "group", "reload", "help");
+            List<String> subCommands = Arrays.asList("ban", "mute", "unban", "unmute", "history", "setid", "removeid", "group", "reload", "stats", "help");
             return subCommands.stream()
                     .filter(cmd -> cmd.startsWith(args[0].toLowerCase()))
                     .collect(Collectors.toList());
@@ -100,8 +107,8 @@ public class VpCommand extends BaseCommand {
                 case "setid":
                 case "removeid":
                     if (args.length == 2) {
-                        // 补全玩家名
-                        return null; // 返回null让Bukkit自动补全在线玩家名
+                        // 补全玩家名（使用玩家名索引）
+                        return completePlayerNames(args[1]);
                     } else if (args.length == 3) {
                         if (subCommand.equals("ban") || subCommand.equals("mute")) {
                             // 补全时长参数
@@ -115,6 +122,7 @@ public class VpCommand extends BaseCommand {
                 case "group": // 添加group命令的tab补全
                     return groupCommand.tabComplete(sender, command, alias, args);
                 case "reload":
+                case "stats":
                 case "help":
                     // 这些命令没有更多参数
                     break;
@@ -125,56 +133,39 @@ public class VpCommand extends BaseCommand {
 
     /**
      * 获取配置中定义的时长选项
+     * 只读取内存中的志愿者缓存和预先生成的组配置，不会在主线程上访问数据库
      */
     private List<String> getDurationOptions(CommandSender sender, String commandType) {
-        // 默认时长选项
         if (sender instanceof Player) {
-            Player player = (Player) sender;
-            String volunteerId = plugin.getVolunteerId(player.getUniqueId());
-            if (volunteerId != null) {
-                // 获取志愿者所在组
-                CompletableFuture<Volunteer> volunteerFuture = plugin.getDatabase().getVolunteerByVolunteerId(volunteerId);
-                try {
-                    Volunteer volunteer = volunteerFuture.join();
-                    if (volunteer != null) {
-                        // 获取组配置
-                        String groupName = volunteer.getGroupName();
-                        cn.popcraft.volunteerpunish.config.ConfigManager.GroupConfig groupConfig = 
-                            plugin.getConfigManager().getGroups().get(groupName);
-                        
-                        if (groupConfig != null) {
-                            // 根据命令类型获取时长列表
-                            if ("ban".equals(commandType) && !groupConfig.getBanDurations().isEmpty()) {
-                                return groupConfig.getBanDurations().stream()
-                                        .map(String::valueOf)
-                                        .collect(Collectors.toList());
-                            } else if ("mute".equals(commandType) && !groupConfig.getMuteDurations().isEmpty()) {
-                                return groupConfig.getMuteDurations().stream()
-                                        .map(String::valueOf)
-                                        .collect(Collectors.toList());
-                            }
-                        }
+            Volunteer volunteer = plugin.getVolunteerCache().getIfPresent(((Player) sender).getUniqueId());
+            if (volunteer != null) {
+                // 获取志愿者所在组的配置
+                ConfigManager.GroupConfig groupConfig = plugin.getConfigManager().getGroups().get(volunteer.getGroupName());
+                if (groupConfig != null) {
+                    // 根据命令类型获取时长列表
+                    if ("ban".equals(commandType) && !groupConfig.getBanDurationOptions().isEmpty()) {
+                        return groupConfig.getBanDurationOptions();
+                    } else if ("mute".equals(commandType) && !groupConfig.getMuteDurationOptions().isEmpty()) {
+                        return groupConfig.getMuteDurationOptions();
                     }
-                } catch (Exception e) {
-                    // 忽略异常，使用默认选项
                 }
             }
         }
         
         // 默认选项
-        return Arrays.asList("60", "300", "600", "3600", "86400", "604800", "permanent");
+        return DEFAULT_DURATION_OPTIONS;
     }
     
     /**
-     * 获取命令执行者的ID
+     * 获取命令执行者的ID（志愿者ID、ADMIN 或 CONSOLE），缓存命中时立即完成
      */
-    private String getExecutorId(CommandSender sender) {
+    private CompletableFuture<String> getExecutorIdAsync(CommandSender sender) {
         if (sender instanceof Player) {
             Player player = (Player) sender;
-            String volunteerId = plugin.getVolunteerId(player.getUniqueId());
-            return volunteerId != null ? volunteerId : "ADMIN";
+            return plugin.getVolunteerIdAsync(player.getUniqueId())
+                .thenApply(volunteerId -> volunteerId != null ? volunteerId : "ADMIN");
         }
-        return "CONSOLE";
+        return CompletableFuture.completedFuture("CONSOLE");
     }
 
     private void sendHelpMessage(CommandSender sender) {
@@ -183,12 +174,14 @@ public class VpCommand extends BaseCommand {
         sender.sendMessage("§a/vp mute <玩家> <时长(秒)|permanent> [原因] §7- 禁言玩家");
         sender.sendMessage("§a/vp unban <玩家> §7- 解封玩家");
         sender.sendMessage("§a/vp unmute <玩家> §7- 解除玩家禁言");
-        sender.sendMessage("§a/vp history [玩家] §7- 查看处罚历史记录");
+        sender.sendMessage("§a/vp history <玩家> [页码] §7- 分页查看处罚历史记录");
         sender.sendMessage("§a/vp setid <玩家> <ID> §7- 设置志愿者ID");
         sender.sendMessage("§a/vp removeid <玩家> §7- 移除志愿者身份");
+        sender.sendMessage("§a/vp setid|removeid batch <文件.csv> §7- 从插件目录中的文件批量设置/移除志愿者");
         sender.sendMessage("§a/vp group §7- 查看自己的身份组");
         sender.sendMessage("§a/vp group <志愿者ID> <组名> §7- 修改志愿者身份组");
         sender.sendMessage("§a/vp reload §7- 重新加载配置文件");
+        sender.sendMessage("§a/vp stats §7- 查看数据库和缓存运行状态");
         sender.sendMessage("§a/vp help §7- 显示此帮助信息");
         sender.sendMessage("§e----------------------------------------");
     }
@@ -206,20 +199,6 @@ public class VpCommand extends BaseCommand {
         String durationStr = args[2];
         String reason = args.length > 3 ? String.join(" ", Arrays.copyOfRange(args, 3, args.length)) : null;
 
-        // 获取执行者ID
-        String executorId = getExecutorId(sender);
-        
-        // 检查执行者是否有权限（玩家需要是志愿者，控制台/OP可以直接执行）
-        if (sender instanceof Player) {
-            Player player = (Player) sender;
-            String volunteerId = plugin.getVolunteerId(player.getUniqueId());
-            if (volunteerId == null && !sender.hasPermission("volunteerpunish.admin.ban")) {
-                sender.sendMessage("§c你不是志愿者，无法执行此命令");
-                return;
-            }
-            executorId = volunteerId != null ? volunteerId : "ADMIN";
-        }
-
         // 解析时长
         long duration;
         if (durationStr.equalsIgnoreCase("permanent")) {
@@ -239,90 +218,66 @@ public class VpCommand extends BaseCommand {
             }
         }
 
-        // 获取目标玩家
-        OfflinePlayer target = Bukkit.getOfflinePlayer(targetName);
-        if (target == null || (!target.hasPlayedBefore() && target.getUniqueId() == null)) {
-            sender.sendMessage("§c玩家不存在: " + targetName);
-            return;
-        }
-
-        UUID targetUuid = target.getUniqueId();
-        if (targetUuid == null) {
-            sender.sendMessage("§c无法获取玩家 " + targetName + " 的UUID");
-            return;
-        }
+        // 解析目标玩家、获取执行者ID、检查目标状态都在异步链中完成，只有 Bukkit API 调用回到主线程
+        resolveTarget(targetName).thenAcceptBothAsync(getExecutorIdAsync(sender), (targetUuid, executorId) -> {
+            if (targetUuid == null) {
+                sender.sendMessage("§c玩家不存在: " + targetName);
+                return;
+            }
 
-        // 检查目标是否已被封禁
-        if (plugin.isBanned(targetUuid)) {
-            sender.sendMessage("§c玩家 " + targetName + " 已被封禁");
-            return;
-        }
+            // 检查执行者是否有权限（玩家需要是志愿者，控制台/OP可以直接执行）
+            if ("ADMIN".equals(executorId) && !sender.hasPermission("volunteerpunish.admin.ban")) {
+                sender.sendMessage("§c你不是志愿者，无法执行此命令");
+                return;
+            }
 
-        // 原子性检查配额并执行封禁（修复竞态条件）
-        final String finalExecutorId = executorId;
-        plugin.getDatabase().getVolunteerByVolunteerId(executorId)
-            .thenCompose(volunteer -> {
-                if (volunteer == null) {
-                    // 不是志愿者但可能是管理员
-                    return CompletableFuture.completedFuture(true);
-                }
-                
-                // 检查配额
-                ConfigManager.GroupConfig groupConfig = plugin.getConfigManager().getGroups().get(volunteer.getGroupName());
-                if (groupConfig == null) {
-                    return CompletableFuture.completedFuture(false);
-                }
-                
-                boolean hasQuota = volunteer.getDailyBanUsed() < groupConfig.getBanQuota();
-                if (!hasQuota) {
-                    return CompletableFuture.completedFuture(false);
+            // 检查目标是否已被封禁，以及目标是否受保护
+            plugin.isBannedAsync(targetUuid).thenAcceptBothAsync(isExemptAsync(executorId, targetUuid), (banned, exempt) -> {
+                if (banned) {
+                    sender.sendMessage("§c玩家 " + targetName + " 已被封禁");
+                    return;
                 }
-                
-                // 先增加计数，确保原子性
-                volunteer.setDailyBanUsed(volunteer.getDailyBanUsed() + 1);
-                return plugin.getDatabase().saveVolunteer(volunteer)
-                    .thenApply(v -> true);
-            })
-            .thenCompose(hasQuota -> {
-                if (!hasQuota) {
-                    Bukkit.getScheduler().runTask(plugin, () ->
-                        sender.sendMessage("§c你今天的封禁配额已用完"));
-                    return CompletableFuture.completedFuture(null);
+                if (exempt) {
+                    sender.sendMessage("§c玩家 " + targetName + " 受保护，志愿者无法封禁");
+                    return;
                 }
+                executeBan(sender, executorId, targetName, targetUuid, duration, reason);
+            }, mainThread()).exceptionally(throwable -> {
+                reportError(sender, "封禁玩家时发生错误", throwable);
+                return null;
+            });
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "封禁玩家时发生错误", throwable);
+            return null;
+        });
+    }
 
-                // 创建处罚记录
-                Punishment punishment = new Punishment();
-                punishment.setTargetUuid(targetUuid);
-                punishment.setVolunteerId(finalExecutorId);
-                punishment.setType(Punishment.Type.BAN);
-                punishment.setDuration(duration);
-                punishment.setReason(reason);
-                punishment.setIssuedAt(new Date());
-
-                if (duration > 0) {
-                    punishment.setExpiresAt(new Date(System.currentTimeMillis() + duration * 1000));
-                }
+    /**
+     * 原子性检查配额并执行封禁
+     */
+    private void executeBan(CommandSender sender, String executorId, String targetName, UUID targetUuid, long duration, String reason) {
+        consumeQuota(executorId, Punishment.Type.BAN).thenAcceptAsync(hasQuota -> {
+            if (!hasQuota) {
+                sender.sendMessage("§c你今天的封禁配额已用完");
+                return;
+            }
 
-                // 保存处罚记录并执行封禁
-                return plugin.getDatabase().savePunishment(punishment)
-                    .thenRun(() -> {
-                        // 执行封禁
-                        String banReason = reason != null ? reason : "违反服务器规定";
-                        plugin.banPlayer(targetUuid, duration > 0 ? duration : null, banReason);
-
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            sender.sendMessage("§a成功封禁玩家 " + targetName +
-                                (duration > 0 ? (" (" + duration + "秒)") : " (永久)"));
-                        });
-                    });
-            })
-            .exceptionally(throwable -> {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    sender.sendMessage("§c封禁玩家时发生错误");
-                    plugin.getLogger().log(Level.SEVERE, "封禁玩家时发生错误", throwable);
-                });
+            Punishment punishment = createPunishment(targetUuid, executorId, Punishment.Type.BAN, duration, reason);
+
+            // 在主线程上立即执行封禁，处罚记录由写入队列批量保存
+            String banReason = reason != null ? reason : "违反服务器规定";
+            plugin.banPlayer(targetUuid, duration > 0 ? duration : null, banReason);
+            sender.sendMessage("§a成功封禁玩家 " + targetName +
+                (duration > 0 ? (" (" + duration + "秒)") : " (永久)"));
+
+            plugin.getDatabase().savePunishment(punishment).exceptionally(throwable -> {
+                reportError(sender, "保存封禁记录时发生错误", throwable);
                 return null;
             });
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "封禁玩家时发生错误", throwable);
+            return null;
+        });
     }
 
     private void handleMuteCommand(CommandSender sender, String[] args) {
@@ -338,20 +293,6 @@ public class VpCommand extends BaseCommand {
         String durationStr = args[2];
         String reason = args.length > 3 ? String.join(" ", Arrays.copyOfRange(args, 3, args.length)) : null;
 
-        // 获取执行者ID
-        String executorId = getExecutorId(sender);
-        
-        // 检查执行者是否有权限（玩家需要是志愿者，控制台/OP可以直接执行）
-        if (sender instanceof Player) {
-            Player player = (Player) sender;
-            String volunteerId = plugin.getVolunteerId(player.getUniqueId());
-            if (volunteerId == null && !sender.hasPermission("volunteerpunish.admin.mute")) {
-                sender.sendMessage("§c你不是志愿者，无法执行此命令");
-                return;
-            }
-            executorId = volunteerId != null ? volunteerId : "ADMIN";
-        }
-
         // 解析时长
         long duration;
         if (durationStr.equalsIgnoreCase("permanent")) {
@@ -371,97 +312,109 @@ public class VpCommand extends BaseCommand {
             }
         }
 
-        // 获取目标玩家
-        OfflinePlayer target = Bukkit.getOfflinePlayer(targetName);
-        if (target == null || (!target.hasPlayedBefore() && target.getUniqueId() == null)) {
-            sender.sendMessage("§c玩家不存在: " + targetName);
-            return;
-        }
-
-        UUID targetUuid = target.getUniqueId();
-        if (targetUuid == null) {
-            sender.sendMessage("§c无法获取玩家 " + targetName + " 的UUID");
-            return;
-        }
+        // 解析目标玩家、获取执行者ID、检查目标状态都在异步链中完成，只有 Bukkit API 调用回到主线程
+        resolveTarget(targetName).thenAcceptBothAsync(getExecutorIdAsync(sender), (targetUuid, executorId) -> {
+            if (targetUuid == null) {
+                sender.sendMessage("§c玩家不存在: " + targetName);
+                return;
+            }
 
-        // 检查目标是否已被禁言
-        if (plugin.isMuted(targetUuid)) {
-            sender.sendMessage("§c玩家 " + targetName + " 已被禁言");
-            return;
-        }
+            // 检查执行者是否有权限（玩家需要是志愿者，控制台/OP可以直接执行）
+            if ("ADMIN".equals(executorId) && !sender.hasPermission("volunteerpunish.admin.mute")) {
+                sender.sendMessage("§c你不是志愿者，无法执行此命令");
+                return;
+            }
 
-        // 原子性检查配额并执行禁言（修复竞态条件）
-        final String finalExecutorId = executorId;
-        plugin.getDatabase().getVolunteerByVolunteerId(executorId)
-            .thenCompose(volunteer -> {
-                if (volunteer == null) {
-                    // 不是志愿者但可能是管理员
-                    return CompletableFuture.completedFuture(true);
-                }
-                
-                // 检查配额
-                ConfigManager.GroupConfig groupConfig = plugin.getConfigManager().getGroups().get(volunteer.getGroupName());
-                if (groupConfig == null) {
-                    return CompletableFuture.completedFuture(false);
-                }
-                
-                boolean hasQuota = volunteer.getDailyMuteUsed() < groupConfig.getMuteQuota();
-                if (!hasQuota) {
-                    return CompletableFuture.completedFuture(false);
+            // 检查目标是否已被禁言，以及目标是否受保护
+            plugin.isMutedAsync(targetUuid).thenAcceptBothAsync(isExemptAsync(executorId, targetUuid), (muted, exempt) -> {
+                if (muted) {
+                    sender.sendMessage("§c玩家 " + targetName + " 已被禁言");
+                    return;
                 }
-                
-                // 先增加计数，确保原子性
-                volunteer.setDailyMuteUsed(volunteer.getDailyMuteUsed() + 1);
-                return plugin.getDatabase().saveVolunteer(volunteer)
-                    .thenApply(v -> true);
-            })
-            .thenCompose(hasQuota -> {
-                if (!hasQuota) {
-                    Bukkit.getScheduler().runTask(plugin, () ->
-                        sender.sendMessage("§c你今天的禁言配额已用完"));
-                    return CompletableFuture.completedFuture(null);
+                if (exempt) {
+                    sender.sendMessage("§c玩家 " + targetName + " 受保护，志愿者无法禁言");
+                    return;
                 }
+                executeMute(sender, executorId, targetName, targetUuid, duration, reason);
+            }, mainThread()).exceptionally(throwable -> {
+                reportError(sender, "禁言玩家时发生错误", throwable);
+                return null;
+            });
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "禁言玩家时发生错误", throwable);
+            return null;
+        });
+    }
 
-                // 创建处罚记录
-                Punishment punishment = new Punishment();
-                punishment.setTargetUuid(targetUuid);
-                punishment.setVolunteerId(finalExecutorId);
-                punishment.setType(Punishment.Type.MUTE);
-                punishment.setDuration(duration);
-                punishment.setReason(reason);
-                punishment.setIssuedAt(new Date());
-
-                if (duration > 0) {
-                    punishment.setExpiresAt(new Date(System.currentTimeMillis() + duration * 1000));
-                }
+    /**
+     * 原子性检查配额并执行禁言
+     */
+    private void executeMute(CommandSender sender, String executorId, String targetName, UUID targetUuid, long duration, String reason) {
+        consumeQuota(executorId, Punishment.Type.MUTE).thenAcceptAsync(hasQuota -> {
+            if (!hasQuota) {
+                sender.sendMessage("§c你今天的禁言配额已用完");
+                return;
+            }
 
-                // 保存处罚记录并执行禁言
-                return plugin.getDatabase().savePunishment(punishment)
-                    .thenRun(() -> {
-                        // 执行禁言
-                        plugin.mutePlayer(targetUuid);
-
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            sender.sendMessage("§a成功禁言玩家 " + targetName +
-                                (duration > 0 ? (" (" + duration + "秒)") : " (永久)"));
-
-                            // 如果玩家在线，通知他们
-                            Player onlineTarget = Bukkit.getPlayer(targetUuid);
-                            if (onlineTarget != null && onlineTarget.isOnline()) {
-                                String muteReason = reason != null ? reason : "违反服务器规定";
-                                onlineTarget.sendMessage("§c你已被禁言\n§7原因: " + muteReason +
-                                    (duration > 0 ? ("\n§7时长: " + duration + "秒") : "\n§7类型: 永久禁言"));
-                            }
-                        });
-                    });
-            })
-            .exceptionally(throwable -> {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    sender.sendMessage("§c禁言玩家时发生错误");
-                    plugin.getLogger().log(Level.SEVERE, "禁言玩家时发生错误", throwable);
-                });
+            Punishment punishment = createPunishment(targetUuid, executorId, Punishment.Type.MUTE, duration, reason);
+
+            // 立即执行禁言，处罚记录由写入队列批量保存
+            plugin.mutePlayer(targetUuid, punishment.getExpiresAt(), punishment.getReason());
+            sender.sendMessage("§a成功禁言玩家 " + targetName +
+                (duration > 0 ? (" (" + duration + "秒)") : " (永久)"));
+
+            // 如果玩家在线，通知他们
+            Player onlineTarget = Bukkit.getPlayer(targetUuid);
+            if (onlineTarget != null && onlineTarget.isOnline()) {
+                String muteReason = reason != null ? reason : "违反服务器规定";
+                onlineTarget.sendMessage("§c你已被禁言\n§7原因: " + muteReason +
+                    (duration > 0 ? ("\n§7时长: " + duration + "秒") : "\n§7类型: 永久禁言"));
+            }
+
+            plugin.getDatabase().savePunishment(punishment).exceptionally(throwable -> {
+                reportError(sender, "保存禁言记录时发生错误", throwable);
                 return null;
             });
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "禁言玩家时发生错误", throwable);
+            return null;
+        });
+    }
+
+    /**
+     * 在数据库中原子性地检查并消耗执行者的配额
+     * @return 有配额（或执行者不是志愿者，如管理员和控制台）时为true
+     */
+    private CompletableFuture<Boolean> consumeQuota(String executorId, Punishment.Type type) {
+        return plugin.getVolunteerCache().getByVolunteerId(executorId).thenCompose(volunteer -> {
+            if (volunteer == null) {
+                // 不是志愿者但可能是管理员
+                return CompletableFuture.completedFuture(true);
+            }
+
+            ConfigManager.GroupConfig groupConfig = plugin.getConfigManager().getGroups().get(volunteer.getGroupName());
+            if (groupConfig == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            int quota = type == Punishment.Type.BAN ? groupConfig.getBanQuota() : groupConfig.getMuteQuota();
+            return plugin.getVolunteerCache().tryConsumeQuota(volunteer.getUuid(), type, quota);
+        });
+    }
+
+    private Punishment createPunishment(UUID targetUuid, String executorId, Punishment.Type type, long duration, String reason) {
+        Punishment punishment = new Punishment();
+        punishment.setTargetUuid(targetUuid);
+        punishment.setVolunteerId(executorId);
+        punishment.setType(type);
+        punishment.setDuration(duration);
+        punishment.setReason(reason);
+        punishment.setIssuedAt(new Date());
+
+        if (duration > 0) {
+            punishment.setExpiresAt(new Date(System.currentTimeMillis() + duration * 1000));
+        }
+        return punishment;
     }
 
     private void handleUnbanCommand(CommandSender sender, String[] args) {
@@ -473,69 +426,45 @@ public class VpCommand extends BaseCommand {
 
         String targetName = args[1];
 
-        // 获取执行者ID
-        String executorId = getExecutorId(sender);
-        
-        // 检查执行者是否有权限
-        if (sender instanceof Player) {
-            Player player = (Player) sender;
-            String volunteerId = plugin.getVolunteerId(player.getUniqueId());
-            if (volunteerId == null && !sender.hasPermission("volunteerpunish.admin.unban")) {
-                sender.sendMessage("§c你不是志愿者，无法执行此命令");
+        // 解析目标玩家、获取执行者ID、检查目标状态都在异步链中完成，只有 Bukkit API 调用回到主线程
+        resolveTarget(targetName).thenAcceptBothAsync(getExecutorIdAsync(sender), (targetUuid, executorId) -> {
+            if (targetUuid == null) {
+                sender.sendMessage("§c玩家不存在: " + targetName);
                 return;
             }
-            executorId = volunteerId != null ? volunteerId : "ADMIN";
-        }
-
-        // 获取目标玩家
-        OfflinePlayer target = Bukkit.getOfflinePlayer(targetName);
-        if (target == null || (!target.hasPlayedBefore() && target.getUniqueId() == null)) {
-            sender.sendMessage("§c玩家不存在: " + targetName);
-            return;
-        }
-
-        UUID targetUuid = target.getUniqueId();
-        if (targetUuid == null) {
-            sender.sendMessage("§c无法获取玩家 " + targetName + " 的UUID");
-            return;
-        }
 
-        // 检查目标是否被封禁
-        if (!plugin.isBanned(targetUuid)) {
-            sender.sendMessage("§c玩家 " + targetName + " 未被封禁");
-            return;
-        }
+            // 检查执行者是否有权限
+            if ("ADMIN".equals(executorId) && !sender.hasPermission("volunteerpunish.admin.unban")) {
+                sender.sendMessage("§c你不是志愿者，无法执行此命令");
+                return;
+            }
 
-        // 创建解除处罚记录
-        Punishment punishment = new Punishment();
-        punishment.setTargetUuid(targetUuid);
-        punishment.setVolunteerId(executorId);
-        punishment.setType(Punishment.Type.BAN);
-        punishment.setDuration(0);
-        punishment.setReason("手动解除封禁");
-        punishment.setIssuedAt(new Date());
-        punishment.setExpiresAt(new Date()); // 立即过期
+            // 检查目标是否被封禁
+            plugin.isBannedAsync(targetUuid).thenAcceptAsync(banned -> {
+                if (!banned) {
+                    sender.sendMessage("§c玩家 " + targetName + " 未被封禁");
+                    return;
+                }
 
-        // 保存处罚记录
-        CompletableFuture<Void> saveFuture = plugin.getDatabase().savePunishment(punishment);
-        saveFuture.thenRun(() -> {
-            // 执行解封
-            plugin.unbanPlayer(targetUuid);
+                // 创建解除处罚记录
+                Punishment punishment = createPunishment(targetUuid, executorId, Punishment.Type.BAN, 0, "手动解除封禁");
+                punishment.setExpiresAt(new Date()); // 立即过期
 
-            Bukkit.getScheduler().runTask(plugin, () -> {
+                // 保存处罚记录，并立即执行解封（停用操作在写入队列中排在该记录之后）
+                CompletableFuture<Void> saveFuture = plugin.getDatabase().savePunishment(punishment);
+                plugin.unbanPlayer(targetUuid);
                 sender.sendMessage("§a成功解封玩家 " + targetName);
 
-                // 如果玩家在线，通知他们
-                Player onlineTarget = Bukkit.getPlayer(targetUuid);
-                if (onlineTarget != null && onlineTarget.isOnline()) {
-                    onlineTarget.sendMessage("§a你已被解除封禁");
-                }
-            });
-        }).exceptionally(throwable -> {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                sender.sendMessage("§c解封玩家时发生错误");
-                plugin.getLogger().log(Level.SEVERE, "保存处罚记录时发生错误", throwable);
+                saveFuture.exceptionally(throwable -> {
+                    reportError(sender, "保存解封记录时发生错误", throwable);
+                    return null;
+                });
+            }, mainThread()).exceptionally(throwable -> {
+                reportError(sender, "解封玩家时发生错误", throwable);
+                return null;
             });
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "解封玩家时发生错误", throwable);
             return null;
         });
     }
@@ -549,80 +478,77 @@ public class VpCommand extends BaseCommand {
 
         String targetName = args[1];
 
-        // 获取执行者ID
-        String executorId = getExecutorId(sender);
-        
-        // 检查执行者是否有权限
-        if (sender instanceof Player) {
-            Player player = (Player) sender;
-            String volunteerId = plugin.getVolunteerId(player.getUniqueId());
-            if (volunteerId == null && !sender.hasPermission("volunteerpunish.admin.unmute")) {
-                sender.sendMessage("§c你不是志愿者，无法执行此命令");
+        // 解析目标玩家、获取执行者ID、检查目标状态都在异步链中完成，只有 Bukkit API 调用回到主线程
+        resolveTarget(targetName).thenAcceptBothAsync(getExecutorIdAsync(sender), (targetUuid, executorId) -> {
+            if (targetUuid == null) {
+                sender.sendMessage("§c玩家不存在: " + targetName);
                 return;
             }
-            executorId = volunteerId != null ? volunteerId : "ADMIN";
-        }
 
-        // 获取目标玩家
-        OfflinePlayer target = Bukkit.getOfflinePlayer(targetName);
-        if (target == null || (!target.hasPlayedBefore() && target.getUniqueId() == null)) {
-            sender.sendMessage("§c玩家不存在: " + targetName);
-            return;
-        }
-
-        UUID targetUuid = target.getUniqueId();
-        if (targetUuid == null) {
-            sender.sendMessage("§c无法获取玩家 " + targetName + " 的UUID");
-            return;
-        }
-
-        // 检查目标是否被禁言
-        if (!plugin.isMuted(targetUuid)) {
-            sender.sendMessage("§c玩家 " + targetName + " 未被禁言");
-            return;
-        }
+            // 检查执行者是否有权限
+            if ("ADMIN".equals(executorId) && !sender.hasPermission("volunteerpunish.admin.unmute")) {
+                sender.sendMessage("§c你不是志愿者，无法执行此命令");
+                return;
+            }
 
-        // 创建解除处罚记录
-        Punishment punishment = new Punishment();
-        punishment.setTargetUuid(targetUuid);
-        punishment.setVolunteerId(executorId);
-        punishment.setType(Punishment.Type.MUTE);
-        punishment.setDuration(0);
-        punishment.setReason("手动解除禁言");
-        punishment.setIssuedAt(new Date());
-        punishment.setExpiresAt(new Date()); // 立即过期
+            // 检查目标是否被禁言
+            plugin.isMutedAsync(targetUuid).thenAcceptAsync(muted -> {
+                if (!muted) {
+                    sender.sendMessage("§c玩家 " + targetName + " 未被禁言");
+                    return;
+                }
 
-        // 保存处罚记录
-        CompletableFuture<Void> saveFuture = plugin.getDatabase().savePunishment(punishment);
-        saveFuture.thenRun(() -> {
-            // 执行解除禁言
-            plugin.unmutePlayer(targetUuid);
+                // 创建解除处罚记录
+                Punishment punishment = createPunishment(targetUuid, executorId, Punishment.Type.MUTE, 0, "手动解除禁言");
+                punishment.setExpiresAt(new Date()); // 立即过期
 
-            Bukkit.getScheduler().runTask(plugin, () -> {
+                // 保存处罚记录，并立即解除禁言（停用操作在写入队列中排在该记录之后）
+                CompletableFuture<Void> saveFuture = plugin.getDatabase().savePunishment(punishment);
+                plugin.unmutePlayer(targetUuid);
                 sender.sendMessage("§a成功解除玩家 " + targetName + " 的禁言");
 
-                // 如果玩家在线，通知他们
-                Player onlineTarget = Bukkit.getPlayer(targetUuid);
-                if (onlineTarget != null && onlineTarget.isOnline()) {
-                    onlineTarget.sendMessage("§a你已被解除禁言");
-                }
-            });
-        }).exceptionally(throwable -> {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                sender.sendMessage("§c解除禁言时发生错误");
-                plugin.getLogger().log(Level.SEVERE, "保存处罚记录时发生错误", throwable);
+                saveFuture.exceptionally(throwable -> {
+                    reportError(sender, "保存解除禁言记录时发生错误", throwable);
+                    return null;
+                });
+            }, mainThread()).exceptionally(throwable -> {
+                reportError(sender, "解除禁言时发生错误", throwable);
+                return null;
             });
+        }, mainThread()).exceptionally(throwable -> {
+            reportError(sender, "解除禁言时发生错误", throwable);
             return null;
         });
     }
 
+    /**
+     * 检查目标玩家是否受保护（拥有 volunteerpunish.exempt 权限），管理员执行时不检查
+     * 目标可能不在线，通过 LuckPerms 异步加载其权限数据，不阻塞主线程
+     */
+    private CompletableFuture<Boolean> isExemptAsync(String executorId, UUID targetUuid) {
+        LuckPermsHook hook = plugin.getLuckPermsHook();
+        if ("ADMIN".equals(executorId) || hook == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return hook.hasPermissionAsync(targetUuid, "volunteerpunish.exempt");
+    }
+
+    /**
+     * 在异步线程中获取目标玩家的UUID，玩家不存在时为null
+     * 与原来一样允许处罚从未进入过服务器的玩家（按名称得到的离线UUID）
+     */
+    private CompletableFuture<UUID> resolveTarget(String targetName) {
+        return resolvePlayerAsync(targetName, false);
+    }
+
     private void handleReloadCommand(CommandSender sender) {
         if (!sender.hasPermission("volunteerpunish.admin.reload")) {
             sender.sendMessage("§c你没有权限执行此命令");
             return;
         }
 
-        plugin.reloadConfig();
+        // 重新读取并解析全部配置（身份组、消息模板、补全选项等），数据库连接设置需要重启才会生效
+        plugin.getConfigManager().loadConfig();
         sender.sendMessage("§a配置文件已重新加载");
     }
 }
\ No newline at end of file
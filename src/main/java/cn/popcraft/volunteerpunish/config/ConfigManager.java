@@ -1,11 +1,17 @@
 package cn.popcraft.volunteerpunish.config;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.model.Punishment;
+import cn.popcraft.volunteerpunish.util.MessageTemplate;
 import org.bukkit.configuration.file.FileConfiguration;
 
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class ConfigManager {
     private final VolunteerPunish plugin;
@@ -19,6 +25,31 @@ public class ConfigManager {
     private String mysqlDatabase;
     private String mysqlUsername;
     private String mysqlPassword;
+    private boolean replicaEnabled;
+    private String replicaJdbcUrl;
+    private String replicaHost;
+    private int replicaPort;
+    private String replicaDatabase;
+    private String replicaUsername;
+    private String replicaPassword;
+    private int replicaPoolSize;
+    private long replicaStickyPrimary;
+    private int poolMaximumSize;
+    private int poolMinimumIdle;
+    private long poolConnectionTimeout;
+    private long poolIdleTimeout;
+    private long poolMaxLifetime;
+    private long poolLeakDetectionThreshold;
+    private int sqliteReadPoolSize;
+    private int sqliteBusyTimeout;
+    private String sqliteSynchronous;
+    private int sqliteCacheSize;
+    private long sqliteMmapSize;
+    private int databaseExecutorQueueSize;
+    private boolean databaseVirtualThreads;
+    private boolean writeBehindEnabled;
+    private int writeBehindBatchSize;
+    private long writeBehindFlushInterval;
     
     // 身份组配置
     private Map<String, GroupConfig> groups;
@@ -26,17 +57,30 @@ public class ConfigManager {
     // 其他配置
     private boolean enableDailyReset;
     private String resetTimezone;
+    private ZoneId resetZone;
     private boolean enableLoginNotification;
-    private Map<String, String> notificationMessages;
-    private Map<String, TitleConfig> titleMessages;
-    private Map<String, String> actionbarMessages;
+    private int tabCompleteMaxResults;
+    private int historyPageSize;
+    private boolean prometheusEnabled;
+    private String prometheusFile;
+    private long prometheusInterval;
+    private long mainThreadWaitThreshold;
+    private long permissionCacheTtl;
+    private int luckPermsBulkParallelism;
+    private String syncType;
+    private String syncServerId;
+    private boolean vanillaMirrorEnabled;
+    private long vanillaMirrorFlushInterval;
+    // 消息模板在加载配置时编译，重新加载时整体替换，异步线程读取到的总是完整的一组
+    private Map<Punishment.Type, MessageTemplate> notificationMessages;
+    private Map<Punishment.Type, TitleConfig> titleMessages;
+    private Map<Punishment.Type, MessageTemplate> actionbarMessages;
+    private MessageTemplate banKickMessage;
+    private MessageTemplate loginKickMessage;
     
     public ConfigManager(VolunteerPunish plugin) {
         this.plugin = plugin;
         this.groups = new HashMap<>();
-        this.notificationMessages = new HashMap<>();
-        this.titleMessages = new HashMap<>();
-        this.actionbarMessages = new HashMap<>();
         loadConfig();
     }
     
@@ -53,6 +97,31 @@ public class ConfigManager {
         mysqlDatabase = config.getString("database.mysql.database", "volunteerpunish");
         mysqlUsername = config.getString("database.mysql.username", "root");
         mysqlPassword = config.getString("database.mysql.password", "");
+        replicaEnabled = config.getBoolean("database.mysql.replica.enabled", false);
+        replicaJdbcUrl = config.getString("database.mysql.replica.jdbc-url", "");
+        replicaHost = config.getString("database.mysql.replica.host", mysqlHost);
+        replicaPort = config.getInt("database.mysql.replica.port", mysqlPort);
+        replicaDatabase = orDefault(config.getString("database.mysql.replica.database", ""), mysqlDatabase);
+        replicaUsername = orDefault(config.getString("database.mysql.replica.username", ""), mysqlUsername);
+        replicaPassword = orDefault(config.getString("database.mysql.replica.password", ""), mysqlPassword);
+        replicaPoolSize = Math.max(1, config.getInt("database.mysql.replica.pool-size", 10));
+        replicaStickyPrimary = Math.max(0L, config.getLong("database.mysql.replica.sticky-primary", 5000L));
+        poolMaximumSize = Math.max(1, config.getInt("database.pool.maximum-pool-size", 10));
+        poolMinimumIdle = Math.max(0, config.getInt("database.pool.minimum-idle", 2));
+        poolConnectionTimeout = Math.max(250L, config.getLong("database.pool.connection-timeout", 30000L));
+        poolIdleTimeout = Math.max(0L, config.getLong("database.pool.idle-timeout", 300000L));
+        poolMaxLifetime = Math.max(0L, config.getLong("database.pool.max-lifetime", 600000L));
+        poolLeakDetectionThreshold = Math.max(0L, config.getLong("database.pool.leak-detection-threshold", 60000L));
+        sqliteReadPoolSize = Math.max(1, config.getInt("database.pool.sqlite.read-pool-size", 4));
+        sqliteBusyTimeout = Math.max(0, config.getInt("database.pool.sqlite.busy-timeout", 5000));
+        sqliteSynchronous = config.getString("database.pool.sqlite.synchronous", "NORMAL");
+        sqliteCacheSize = config.getInt("database.pool.sqlite.cache-size", -64000);
+        sqliteMmapSize = Math.max(0L, config.getLong("database.pool.sqlite.mmap-size", 268435456L));
+        databaseExecutorQueueSize = Math.max(1, config.getInt("database.executor.queue-size", 1000));
+        databaseVirtualThreads = config.getBoolean("database.executor.virtual-threads", false);
+        writeBehindEnabled = config.getBoolean("database.write-behind.enabled", true);
+        writeBehindBatchSize = Math.max(1, config.getInt("database.write-behind.batch-size", 50));
+        writeBehindFlushInterval = Math.max(10L, config.getLong("database.write-behind.flush-interval", 500L));
         
         // 加载身份组配置
         loadGroups();
@@ -60,27 +129,61 @@ public class ConfigManager {
         // 加载其他配置
         enableDailyReset = config.getBoolean("daily-reset.enabled", true);
         resetTimezone = config.getString("daily-reset.timezone", "UTC");
+        try {
+            resetZone = ZoneId.of(resetTimezone);
+        } catch (Exception e) {
+            plugin.getLogger().warning("无效的时区配置: " + resetTimezone + "，使用默认时区 UTC");
+            resetZone = ZoneId.of("UTC");
+        }
         enableLoginNotification = config.getBoolean("notification.login.enabled", true);
+        tabCompleteMaxResults = Math.max(1, config.getInt("tab-complete.max-results", 50));
+        historyPageSize = Math.max(1, config.getInt("history.page-size", 10));
+        prometheusEnabled = config.getBoolean("metrics.prometheus.enabled", false);
+        prometheusFile = config.getString("metrics.prometheus.file", "metrics.prom");
+        prometheusInterval = Math.max(1L, config.getLong("metrics.prometheus.interval", 15L));
+        mainThreadWaitThreshold = Math.max(0L, config.getLong("metrics.main-thread-wait-threshold", 50L));
+        permissionCacheTtl = Math.max(0L, config.getLong("luckperms.permission-cache-ttl", 30L));
+        luckPermsBulkParallelism = Math.max(1, config.getInt("luckperms.bulk-parallelism", 8));
+        syncType = config.getString("sync.type", "none");
+        syncServerId = config.getString("sync.server-id", "");
+        vanillaMirrorEnabled = config.getBoolean("ban.vanilla-mirror.enabled", false);
+        vanillaMirrorFlushInterval = Math.max(50L, config.getLong("ban.vanilla-mirror.flush-interval", 1000L));
         
         // 加载通知消息
-        notificationMessages.put("ban", config.getString("notification.messages.ban", 
-            "&c你已被志愿者 #{volunteer_id} 封禁 {duration}，原因：{reason}。解封时间：{unban_time}"));
-        notificationMessages.put("mute", config.getString("notification.messages.mute", 
-            "&c你已被志愿者 #{volunteer_id} 禁言 {duration}，原因：{reason}"));
+        Map<Punishment.Type, MessageTemplate> notifications = new EnumMap<>(Punishment.Type.class);
+        notifications.put(Punishment.Type.BAN, MessageTemplate.compile(config.getString("notification.messages.ban", 
+            "&c你已被志愿者 #{volunteer_id} 封禁 {duration}，原因：{reason}。解封时间：{unban_time}")));
+        notifications.put(Punishment.Type.MUTE, MessageTemplate.compile(config.getString("notification.messages.mute", 
+            "&c你已被志愿者 #{volunteer_id} 禁言 {duration}，原因：{reason}")));
+        notificationMessages = notifications;
             
         // 加载Title消息
-        titleMessages.put("ban", new TitleConfig(
+        Map<Punishment.Type, TitleConfig> titles = new EnumMap<>(Punishment.Type.class);
+        titles.put(Punishment.Type.BAN, new TitleConfig(
             config.getString("notification.title.ban.title", "&c你已被封禁"),
             config.getString("notification.title.ban.subtitle", "&7原因: {reason}")
         ));
-        titleMessages.put("mute", new TitleConfig(
+        titles.put(Punishment.Type.MUTE, new TitleConfig(
             config.getString("notification.title.mute.title", "&c你已被禁言"),
             config.getString("notification.title.mute.subtitle", "&7原因: {reason}")
         ));
+        titleMessages = titles;
         
         // 加载ActionBar消息
-        actionbarMessages.put("ban", config.getString("notification.actionbar.ban", "&c你当前处于封禁状态"));
-        actionbarMessages.put("mute", config.getString("notification.actionbar.mute", "&c你当前处于禁言状态"));
+        Map<Punishment.Type, MessageTemplate> actionbars = new EnumMap<>(Punishment.Type.class);
+        actionbars.put(Punishment.Type.BAN, MessageTemplate.compile(config.getString("notification.actionbar.ban", "&c你当前处于封禁状态")));
+        actionbars.put(Punishment.Type.MUTE, MessageTemplate.compile(config.getString("notification.actionbar.mute", "&c你当前处于禁言状态")));
+        actionbarMessages = actionbars;
+        
+        // 加载踢出消息
+        banKickMessage = MessageTemplate.compile(config.getString("notification.kick.ban",
+            "&c你已被封禁\n&7原因: {reason}\n&7解封时间: {unban_time}"));
+        loginKickMessage = MessageTemplate.compile(config.getString("notification.kick.login",
+            "&c你已被封禁\n&7原因: {reason}\n&7时长: {duration}\n&7封禁者: {volunteer_id}"));
+    }
+    
+    private static String orDefault(String value, String defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : value;
     }
     
     private void loadGroups() {
@@ -130,6 +233,106 @@ public class ConfigManager {
         return mysqlPassword;
     }
     
+    public boolean isReplicaEnabled() {
+        return replicaEnabled;
+    }
+    
+    public String getReplicaJdbcUrl() {
+        return replicaJdbcUrl;
+    }
+    
+    public String getReplicaHost() {
+        return replicaHost;
+    }
+    
+    public int getReplicaPort() {
+        return replicaPort;
+    }
+    
+    public String getReplicaDatabase() {
+        return replicaDatabase;
+    }
+    
+    public String getReplicaUsername() {
+        return replicaUsername;
+    }
+    
+    public String getReplicaPassword() {
+        return replicaPassword;
+    }
+    
+    public int getReplicaPoolSize() {
+        return replicaPoolSize;
+    }
+    
+    public long getReplicaStickyPrimary() {
+        return replicaStickyPrimary;
+    }
+    
+    public int getPoolMaximumSize() {
+        return poolMaximumSize;
+    }
+    
+    public int getPoolMinimumIdle() {
+        return poolMinimumIdle;
+    }
+    
+    public long getPoolConnectionTimeout() {
+        return poolConnectionTimeout;
+    }
+    
+    public long getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
+    
+    public long getPoolMaxLifetime() {
+        return poolMaxLifetime;
+    }
+    
+    public long getPoolLeakDetectionThreshold() {
+        return poolLeakDetectionThreshold;
+    }
+    
+    public int getSqliteReadPoolSize() {
+        return sqliteReadPoolSize;
+    }
+    
+    public int getSqliteBusyTimeout() {
+        return sqliteBusyTimeout;
+    }
+    
+    public String getSqliteSynchronous() {
+        return sqliteSynchronous;
+    }
+    
+    public int getSqliteCacheSize() {
+        return sqliteCacheSize;
+    }
+    
+    public long getSqliteMmapSize() {
+        return sqliteMmapSize;
+    }
+    
+    public int getDatabaseExecutorQueueSize() {
+        return databaseExecutorQueueSize;
+    }
+    
+    public boolean isDatabaseVirtualThreads() {
+        return databaseVirtualThreads;
+    }
+    
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+    
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+    
+    public long getWriteBehindFlushInterval() {
+        return writeBehindFlushInterval;
+    }
+    
     public Map<String, GroupConfig> getGroups() {
         return groups;
     }
@@ -158,20 +361,92 @@ public class ConfigManager {
         return resetTimezone;
     }
     
+    /**
+     * 每日配额重置使用的时区，配置无效时为 UTC
+     */
+    public ZoneId getResetZone() {
+        return resetZone;
+    }
+    
     public boolean isEnableLoginNotification() {
         return enableLoginNotification;
     }
     
-    public Map<String, String> getNotificationMessages() {
-        return notificationMessages;
+    public int getTabCompleteMaxResults() {
+        return tabCompleteMaxResults;
+    }
+    
+    public int getHistoryPageSize() {
+        return historyPageSize;
+    }
+    
+    public boolean isPrometheusEnabled() {
+        return prometheusEnabled;
     }
     
-    public Map<String, TitleConfig> getTitleMessages() {
-        return titleMessages;
+    public String getPrometheusFile() {
+        return prometheusFile;
     }
     
-    public Map<String, String> getActionbarMessages() {
-        return actionbarMessages;
+    public long getPrometheusInterval() {
+        return prometheusInterval;
+    }
+    
+    public long getMainThreadWaitThreshold() {
+        return mainThreadWaitThreshold;
+    }
+    
+    public long getPermissionCacheTtl() {
+        return permissionCacheTtl;
+    }
+    
+    public int getLuckPermsBulkParallelism() {
+        return luckPermsBulkParallelism;
+    }
+    
+    public String getSyncType() {
+        return syncType;
+    }
+    
+    public String getSyncServerId() {
+        return syncServerId;
+    }
+    
+    /**
+     * 是否把封禁同步到原版封禁列表
+     */
+    public boolean isVanillaMirrorEnabled() {
+        return vanillaMirrorEnabled;
+    }
+    
+    public long getVanillaMirrorFlushInterval() {
+        return vanillaMirrorFlushInterval;
+    }
+    
+    public MessageTemplate getNotificationMessage(Punishment.Type type) {
+        return notificationMessages.get(type);
+    }
+    
+    public TitleConfig getTitleMessage(Punishment.Type type) {
+        return titleMessages.get(type);
+    }
+    
+    public MessageTemplate getActionbarMessage(Punishment.Type type) {
+        return actionbarMessages.get(type);
+    }
+    
+    /**
+     * 在线玩家被封禁时的踢出消息
+     */
+    public MessageTemplate getBanKickMessage() {
+        return banKickMessage;
+    }
+    
+    /**
+     * 被封禁的玩家尝试登录时的拒绝消息
+     */
+    public MessageTemplate getLoginKickMessage() {
+        return loginKickMessage;
     }
     
     public static class GroupConfig {
@@ -182,6 +457,9 @@ public class ConfigManager {
         private final List<Integer> muteDurations;
         private final boolean allowCustomBanReason;
         private final boolean allowCustomMuteReason;
+        // 预先生成的Tab补全选项
+        private final List<String> banDurationOptions;
+        private final List<String> muteDurationOptions;
         
         public GroupConfig(String name, int banQuota, int muteQuota, 
                           List<Integer> banDurations, List<Integer> muteDurations,
@@ -193,6 +471,14 @@ public class ConfigManager {
             this.muteDurations = muteDurations;
             this.allowCustomBanReason = allowCustomBanReason;
             this.allowCustomMuteReason = allowCustomMuteReason;
+            this.banDurationOptions = toOptions(banDurations);
+            this.muteDurationOptions = toOptions(muteDurations);
+        }
+        
+        private static List<String> toOptions(List<Integer> durations) {
+            return Collections.unmodifiableList(durations.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.toList()));
         }
         
         public String getName() {
@@ -215,6 +501,14 @@ public class ConfigManager {
             return muteDurations;
         }
         
+        public List<String> getBanDurationOptions() {
+            return banDurationOptions;
+        }
+        
+        public List<String> getMuteDurationOptions() {
+            return muteDurationOptions;
+        }
+        
         public boolean isAllowCustomBanReason() {
             return allowCustomBanReason;
         }
@@ -225,19 +519,19 @@ public class ConfigManager {
     }
     
     public static class TitleConfig {
-        private final String title;
-        private final String subtitle;
+        private final MessageTemplate title;
+        private final MessageTemplate subtitle;
         
         public TitleConfig(String title, String subtitle) {
-            this.title = title;
-            this.subtitle = subtitle;
+            this.title = MessageTemplate.compile(title);
+            this.subtitle = MessageTemplate.compile(subtitle);
         }
         
-        public String getTitle() {
+        public MessageTemplate getTitle() {
             return title;
         }
         
-        public String getSubtitle() {
+        public MessageTemplate getSubtitle() {
             return subtitle;
         }
     }
@@ -0,0 +1,284 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * 紧凑表结构迁移
+ * UUID 改为 BINARY(16)，时间改为 BIGINT 毫秒时间戳，处罚类型改为 TINYINT 编号
+ * 数据按 id 分批复制到 *_compact 新表并建立索引，复制完成后原表改名为 *_legacy 保留，新表改名替换原表
+ *
+ * MySQL 的 DDL 会自动提交，迁移可能在任意两条语句之间中断，因此每张表按当前状态继续：
+ * 有 *_legacy 表说明复制已完成，只需补完改名；否则原表仍是旧格式，丢弃未完成的 *_compact 表重新复制
+ * 原表从不删除，无法解析而被跳过的记录仍保留在 *_legacy 表中
+ */
+class CompactSchemaMigration extends Migration {
+    private static final int CHUNK_SIZE = 1000;
+    private static final String COMPACT = "_compact";
+    private static final String LEGACY = "_legacy";
+    // SQLite 的 CURRENT_TIMESTAMP / datetime('now') 写入的 UTC 文本时间
+    private static final DateTimeFormatter SQLITE_TEXT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSS]");
+    
+    private final Logger logger;
+    
+    CompactSchemaMigration(int version, Logger logger) {
+        super(version, "compact uuid, timestamp and type columns");
+        this.logger = logger;
+    }
+    
+    @Override
+    public void migrate(Connection connection, SqlDialect dialect) throws SQLException {
+        boolean sqlite = dialect == SqlDialect.SQLITE;
+        String autoIncrement = dialect.autoIncrement();
+        String uuidType = dialect.uuidType();
+        
+        if (needsCopy(connection, "volunteers")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE volunteers_compact (" +
+                        "id INTEGER PRIMARY KEY" + autoIncrement + ", " +
+                        "uuid " + uuidType + " NOT NULL UNIQUE, " +
+                        "group_name VARCHAR(32) NOT NULL, " +
+                        "volunteer_id VARCHAR(8) NOT NULL, " +
+                        "daily_ban_used INTEGER NOT NULL DEFAULT 0, " +
+                        "daily_mute_used INTEGER NOT NULL DEFAULT 0, " +
+                        "last_reset BIGINT" +
+                        ")");
+            }
+            copyVolunteers(connection, sqlite);
+            // SQLite 的索引名在整个数据库内唯一，旧索引仍在 *_legacy 表上，新索引使用不同的名称
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE INDEX idx_volunteers_v5_volunteer_id ON volunteers_compact (volunteer_id)");
+            }
+        }
+        swap(connection, "volunteers");
+        
+        if (needsCopy(connection, "punishments")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE punishments_compact (" +
+                        "id INTEGER PRIMARY KEY" + autoIncrement + ", " +
+                        "target_uuid " + uuidType + " NOT NULL, " +
+                        "volunteer_id VARCHAR(8) NOT NULL, " +
+                        "type TINYINT NOT NULL, " +
+                        "duration INTEGER NOT NULL, " +
+                        "reason TEXT, " +
+                        "issued_at BIGINT NOT NULL, " +
+                        "expires_at BIGINT, " +
+                        "is_active BOOLEAN NOT NULL DEFAULT TRUE" +
+                        ")");
+            }
+            copyPunishments(connection, sqlite);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE INDEX idx_punishments_v5_active ON punishments_compact (target_uuid, type, is_active, expires_at)");
+                statement.executeUpdate("CREATE INDEX idx_punishments_v5_history ON punishments_compact (target_uuid, issued_at)");
+                statement.executeUpdate("CREATE INDEX idx_punishments_v5_expiry ON punishments_compact (is_active, expires_at)");
+            }
+        }
+        swap(connection, "punishments");
+        
+        logger.info("旧数据表已保留为 volunteers" + LEGACY + " 和 punishments" + LEGACY + "，确认数据无误后可以手动删除");
+    }
+    
+    /**
+     * 判断该表是否还需要复制，需要时先删除上次中断留下的未完成新表
+     */
+    private static boolean needsCopy(Connection connection, String table) throws SQLException {
+        if (tableExists(connection, table + LEGACY)) {
+            // 原表已改名，新表在改名前已复制完成
+            return false;
+        }
+        if (!tableExists(connection, table)) {
+            throw new SQLException("数据表 " + table + " 不存在");
+        }
+        // 原表仍是旧格式，*_compact 只可能是未复制完的新表
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS " + table + COMPACT);
+        }
+        return true;
+    }
+    
+    /**
+     * 原表改名为 *_legacy，新表改名替换原表
+     * 两次改名之间中断时，下次执行只补完第二次改名
+     */
+    private static void swap(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!tableExists(connection, table + LEGACY)) {
+                statement.executeUpdate("ALTER TABLE " + table + " RENAME TO " + table + LEGACY);
+            }
+            if (tableExists(connection, table + COMPACT)) {
+                statement.executeUpdate("ALTER TABLE " + table + COMPACT + " RENAME TO " + table);
+            }
+        }
+    }
+    
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        // 下划线在表名匹配中是通配符，需要转义
+        String escape = metaData.getSearchStringEscape();
+        String pattern = escape != null ? table.replace("_", escape + "_") : table;
+        // 部分数据库以大写保存未加引号的表名
+        for (String name : new String[] {pattern, pattern.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, name, new String[] {"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private void copyVolunteers(Connection connection, boolean sqlite) throws SQLException {
+        int copied = 0;
+        int skipped = 0;
+        int lastId = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, uuid, group_name, volunteer_id, daily_ban_used, daily_mute_used, last_reset " +
+                     "FROM volunteers WHERE id > ? ORDER BY id LIMIT " + CHUNK_SIZE);
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO volunteers_compact (id, uuid, group_name, volunteer_id, daily_ban_used, daily_mute_used, last_reset) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            
+            while (true) {
+                int rows = 0;
+                select.setInt(1, lastId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        lastId = rs.getInt(1);
+                        UUID uuid = parseUuid(rs.getString(2));
+                        if (uuid == null) {
+                            skipped++;
+                            continue;
+                        }
+                        insert.setInt(1, lastId);
+                        insert.setBytes(2, UuidBytes.toBytes(uuid));
+                        insert.setString(3, rs.getString(3));
+                        insert.setString(4, rs.getString(4));
+                        insert.setInt(5, rs.getInt(5));
+                        insert.setInt(6, rs.getInt(6));
+                        setMillis(insert, 7, readMillis(rs, 7, sqlite));
+                        insert.addBatch();
+                        copied++;
+                    }
+                }
+                if (rows == 0) {
+                    break;
+                }
+                insert.executeBatch();
+            }
+        }
+        logger.info("已转换 " + copied + " 条志愿者记录" +
+                (skipped > 0 ? "，跳过 " + skipped + " 条无效记录（保留在 volunteers" + LEGACY + " 表中）" : ""));
+    }
+    
+    private void copyPunishments(Connection connection, boolean sqlite) throws SQLException {
+        int copied = 0;
+        int skipped = 0;
+        int lastId = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, target_uuid, volunteer_id, type, duration, reason, issued_at, expires_at, is_active " +
+                     "FROM punishments WHERE id > ? ORDER BY id LIMIT " + CHUNK_SIZE);
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO punishments_compact (id, target_uuid, volunteer_id, type, duration, reason, issued_at, expires_at, is_active) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            
+            while (true) {
+                int rows = 0;
+                select.setInt(1, lastId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        lastId = rs.getInt(1);
+                        UUID target = parseUuid(rs.getString(2));
+                        Punishment.Type type = parseType(rs.getString(4));
+                        Long issuedAt = readMillis(rs, 7, sqlite);
+                        if (target == null || type == null || issuedAt == null) {
+                            skipped++;
+                            continue;
+                        }
+                        insert.setInt(1, lastId);
+                        insert.setBytes(2, UuidBytes.toBytes(target));
+                        insert.setString(3, rs.getString(3));
+                        insert.setInt(4, type.getCode());
+                        insert.setLong(5, rs.getLong(5));
+                        insert.setString(6, rs.getString(6));
+                        insert.setLong(7, issuedAt);
+                        setMillis(insert, 8, readMillis(rs, 8, sqlite));
+                        insert.setBoolean(9, rs.getBoolean(9));
+                        insert.addBatch();
+                        copied++;
+                    }
+                }
+                if (rows == 0) {
+                    break;
+                }
+                insert.executeBatch();
+            }
+        }
+        logger.info("已转换 " + copied + " 条处罚记录" +
+                (skipped > 0 ? "，跳过 " + skipped + " 条无效记录（保留在 punishments" + LEGACY + " 表中）" : ""));
+    }
+    
+    private static UUID parseUuid(String value) {
+        try {
+            return value != null ? UUID.fromString(value) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private static Punishment.Type parseType(String value) {
+        try {
+            return value != null ? Punishment.Type.valueOf(value) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 读取旧表中的时间列
+     * SQLite 中可能是 JDBC 写入的毫秒数，也可能是默认值写入的 UTC 文本
+     */
+    private static Long readMillis(ResultSet rs, int column, boolean sqlite) throws SQLException {
+        if (!sqlite) {
+            Timestamp timestamp = rs.getTimestamp(column);
+            return timestamp != null ? timestamp.getTime() : null;
+        }
+        
+        Object value = rs.getObject(column);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return LocalDateTime.parse(value.toString(), SQLITE_TEXT_TIME).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new SQLException("无法解析时间: " + value, e);
+        }
+    }
+    
+    private static void setMillis(PreparedStatement statement, int index, Long millis) throws SQLException {
+        if (millis != null) {
+            statement.setLong(index, millis);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package cn.popcraft.volunteerpunish.database;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 数据库操作专用的有界线程池
+ * 避免阻塞的 JDBC 调用占用服务器共享的 ForkJoinPool.commonPool()
+ */
+public class DatabaseExecutor implements Executor {
+    private static final long REJECTION_LOG_INTERVAL = 10000L;
+    
+    private final Logger logger;
+    private final ExecutorService delegate;
+    private final int threads;
+    private final int queueSize;
+    private final boolean virtualThreads;
+    // 虚拟线程模式下用于限制排队+执行中的任务总数
+    private final Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile long lastRejectionLog;
+    
+    private DatabaseExecutor(Logger logger, ExecutorService delegate, int threads, int queueSize, boolean virtualThreads) {
+        this.logger = logger;
+        this.delegate = delegate;
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.virtualThreads = virtualThreads;
+        this.permits = virtualThreads ? new Semaphore(threads + queueSize) : null;
+    }
+    
+    /**
+     * 创建数据库线程池
+     * @param logger 日志
+     * @param threads 工作线程数（应与连接池大小一致）
+     * @param queueSize 最大排队任务数
+     * @param preferVirtualThreads 是否在 Java 21+ 上使用虚拟线程
+     */
+    public static DatabaseExecutor create(Logger logger, int threads, int queueSize, boolean preferVirtualThreads) {
+        if (preferVirtualThreads) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                logger.info("数据库线程池使用虚拟线程模式");
+                return new DatabaseExecutor(logger, virtual, threads, queueSize, true);
+            }
+            logger.warning("当前 Java 版本不支持虚拟线程，数据库线程池使用普通线程模式");
+        }
+        
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            new NamedThreadFactory("VolunteerPunish-DB-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return new DatabaseExecutor(logger, executor, threads, queueSize, false);
+    }
+    
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        if (permits != null && !permits.tryAcquire()) {
+            throw reject();
+        }
+        
+        pending.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    pending.decrementAndGet();
+                    if (permits != null) {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+            throw reject();
+        }
+    }
+    
+    private RejectedExecutionException reject() {
+        long count = rejectedCount.incrementAndGet();
+        long now = System.currentTimeMillis();
+        if (now - lastRejectionLog >= REJECTION_LOG_INTERVAL) {
+            lastRejectionLog = now;
+            logger.warning("数据库任务队列已满 (" + queueSize + ")，已拒绝 " + count + " 个任务");
+        }
+        return new RejectedExecutionException("数据库任务队列已满");
+    }
+    
+    /**
+     * 关闭线程池，等待已提交的任务完成
+     * @param timeoutMillis 最长等待时间
+     */
+    public void shutdown(long timeoutMillis) {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warning("数据库线程池未能在 " + timeoutMillis + " 毫秒内完成，剩余 " + pending.get() + " 个任务将被中断");
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "关闭数据库线程池时出错", e);
+        }
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    /**
+     * 已提交但尚未完成的任务数（排队中+执行中）
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+    
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+    
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger(1);
+        
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
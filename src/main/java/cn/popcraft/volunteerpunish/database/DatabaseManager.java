@@ -2,38 +2,80 @@ package cn.popcraft.volunteerpunish.database;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
 import cn.popcraft.volunteerpunish.config.ConfigManager;
+import cn.popcraft.volunteerpunish.metrics.OperationStats;
+import cn.popcraft.volunteerpunish.metrics.PluginMetrics;
 import cn.popcraft.volunteerpunish.model.Punishment;
 import cn.popcraft.volunteerpunish.model.Volunteer;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 import java.io.File;
 import java.io.IOException;
 import java.sql.*;
+import javax.sql.DataSource;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class DatabaseManager {
     private final VolunteerPunish plugin;
+    // 写入使用的连接池（SQLite 下只有一个连接，写入串行执行）
     private HikariDataSource dataSource;
+    // SQLite 的只读连接池，MySQL 下为null
+    private HikariDataSource readPool;
+    // 只读副本连接池，未配置时为null
+    private HikariDataSource replicaSource;
+    private int replicaPoolSize;
+    // 最近写入过处罚记录的玩家及写入时间，在复制延迟内这些玩家的查询仍使用主库
+    private final Map<UUID, Long> recentWrites = new ConcurrentHashMap<>();
     private final String databaseType;
+    // 启动时解析的数据库方言，不支持的类型为null
+    private final SqlDialect dialect;
+    // 各连接上复用的预编译语句，两个 DAO 共用
+    private final StatementCache statements;
+    private final VolunteerDao volunteers;
+    private final PunishmentDao punishments;
+    private DatabaseExecutor executor;
+    private PunishmentWriteQueue writeQueue;
+    private int poolSize;
+    private final PluginMetrics metrics;
+    // 当前线程正在执行的数据库操作，用于统计被捕获的错误
+    private final ThreadLocal<OperationStats> currentOperation = new ThreadLocal<>();
     
     public DatabaseManager(VolunteerPunish plugin) {
         this.plugin = plugin;
+        this.metrics = plugin.getMetrics();
         ConfigManager config = plugin.getConfigManager();
         this.databaseType = config.getDatabaseType();
+        this.dialect = resolveDialect(databaseType);
+        this.statements = new StatementCache(dialect);
+        this.volunteers = dialect != null ? new VolunteerDao(dialect, statements) : null;
+        this.punishments = new PunishmentDao(statements);
         setupDatabase();
     }
     
+    private static SqlDialect resolveDialect(String databaseType) {
+        try {
+            return SqlDialect.of(databaseType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
     private void setupDatabase() {
         try {
-            if ("sqlite".equalsIgnoreCase(databaseType)) {
+            if (dialect == SqlDialect.SQLITE) {
                 plugin.getLogger().info("正在初始化 SQLite 数据库...");
                 setupSQLite();
-            } else if ("mysql".equalsIgnoreCase(databaseType)) {
+            } else if (dialect == SqlDialect.MYSQL) {
                 plugin.getLogger().info("正在初始化 MySQL 数据库...");
                 setupMySQL();
             } else {
@@ -43,8 +85,22 @@ public class DatabaseManager {
                 return;
             }
             
+            if (config().isReplicaEnabled()) {
+                setupReplica();
+            }
+            
+            // 数据库线程数与连接池大小（包括只读副本）一致，多余的任务在队列中等待
+            executor = DatabaseExecutor.create(plugin.getLogger(), poolSize + replicaPoolSize,
+                config().getDatabaseExecutorQueueSize(), config().isDatabaseVirtualThreads());
+            
             plugin.getLogger().info("正在创建数据库表...");
             createTables();
+            
+            // 处罚记录批量写入队列
+            int batchSize = config().isWriteBehindEnabled() ? config().getWriteBehindBatchSize() : 1;
+            writeQueue = new PunishmentWriteQueue(plugin.getLogger(), dataSource, punishments, executor,
+                batchSize, config().getWriteBehindFlushInterval(), metrics.operation("writeBatch"));
+            writeQueue.start();
             plugin.getLogger().info("数据库初始化完成");
             
         } catch (Exception e) {
@@ -59,33 +115,21 @@ public class DatabaseManager {
         ConfigManager config = plugin.getConfigManager();
         String path = new File(plugin.getDataFolder(), config.getSqlitePath()).getAbsolutePath();
         
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl("jdbc:sqlite:" + path);
-        
-        // 连接池设置
-        hikariConfig.setMaximumPoolSize(5);
-        hikariConfig.setMinimumIdle(1);
-        hikariConfig.setIdleTimeout(300000);
-        hikariConfig.setMaxLifetime(600000);
-        hikariConfig.setConnectionTimeout(30000);
-        
-        // SQLite特定设置
-        hikariConfig.setConnectionTestQuery("SELECT 1");
-        hikariConfig.addDataSourceProperty("journal_mode", "WAL");
-        hikariConfig.addDataSourceProperty("synchronous", "NORMAL");
-        hikariConfig.addDataSourceProperty("cache_size", "-64000");
-        hikariConfig.addDataSourceProperty("temp_store", "memory");
-        hikariConfig.addDataSourceProperty("mmap_size", "268435456");
+        // SQLite 同一时间只允许一个写入者，写入使用单独的一个连接串行执行，查询使用只读连接池
+        int readPoolSize = config.getSqliteReadPoolSize();
+        poolSize = 1 + readPoolSize;
         
         try {
-            dataSource = new HikariDataSource(hikariConfig);
+            dataSource = new HikariDataSource(sqliteConfig(path, 1, false));
             
-            // 测试连接
+            // 测试连接（写入连接负责创建数据库文件并切换到 WAL 模式，必须先于只读连接打开）
             try (Connection testConnection = dataSource.getConnection()) {
                 if (testConnection.isValid(5)) {
                     plugin.getLogger().info("SQLite 数据库连接成功: " + path);
                 }
             }
+            
+            readPool = new HikariDataSource(sqliteConfig(path, readPoolSize, true));
         } catch (Exception e) {
             plugin.getLogger().severe("SQLite 数据库连接失败: " + e.getMessage());
             plugin.getLogger().severe("文件路径: " + path);
@@ -94,6 +138,43 @@ public class DatabaseManager {
         }
     }
     
+    private HikariConfig sqliteConfig(String path, int maximumPoolSize, boolean readOnly) {
+        ConfigManager config = plugin.getConfigManager();
+        
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(readOnly ? "VolunteerPunish-read" : "VolunteerPunish-write");
+        hikariConfig.setJdbcUrl("jdbc:sqlite:" + path);
+        applyPoolSettings(hikariConfig, maximumPoolSize);
+        
+        // SQLite特定设置
+        hikariConfig.setConnectionTestQuery("SELECT 1");
+        if (readOnly) {
+            // SQLITE_OPEN_READONLY，WAL 模式由写入连接设置并保存在数据库文件中
+            hikariConfig.addDataSourceProperty("open_mode", "1");
+        } else {
+            hikariConfig.addDataSourceProperty("journal_mode", "WAL");
+        }
+        hikariConfig.addDataSourceProperty("busy_timeout", String.valueOf(config.getSqliteBusyTimeout()));
+        hikariConfig.addDataSourceProperty("synchronous", config.getSqliteSynchronous());
+        hikariConfig.addDataSourceProperty("cache_size", String.valueOf(config.getSqliteCacheSize()));
+        hikariConfig.addDataSourceProperty("temp_store", "memory");
+        hikariConfig.addDataSourceProperty("mmap_size", String.valueOf(config.getSqliteMmapSize()));
+        return hikariConfig;
+    }
+    
+    /**
+     * 应用 database.pool.* 中的连接池设置
+     */
+    private void applyPoolSettings(HikariConfig hikariConfig, int maximumPoolSize) {
+        ConfigManager config = plugin.getConfigManager();
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
+        hikariConfig.setMinimumIdle(Math.min(config.getPoolMinimumIdle(), maximumPoolSize));
+        hikariConfig.setIdleTimeout(config.getPoolIdleTimeout());
+        hikariConfig.setMaxLifetime(config.getPoolMaxLifetime());
+        hikariConfig.setConnectionTimeout(config.getPoolConnectionTimeout());
+        hikariConfig.setLeakDetectionThreshold(config.getPoolLeakDetectionThreshold());
+    }
+    
     private void setupMySQL() throws SQLException {
         ConfigManager config = plugin.getConfigManager();
         
@@ -110,12 +191,9 @@ public class DatabaseManager {
         hikariConfig.setPassword(config.getMysqlPassword());
         
         // 连接池设置
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2);
-        hikariConfig.setIdleTimeout(300000); // 5分钟
-        hikariConfig.setMaxLifetime(600000); // 10分钟
-        hikariConfig.setConnectionTimeout(30000); // 30秒连接超时
-        hikariConfig.setLeakDetectionThreshold(60000); // 1分钟泄漏检测
+        poolSize = config.getPoolMaximumSize();
+        hikariConfig.setPoolName("VolunteerPunish");
+        applyPoolSettings(hikariConfig, poolSize);
         
         // 连接测试查询
         hikariConfig.setConnectionTestQuery("SELECT 1");
@@ -152,301 +230,496 @@ public class DatabaseManager {
         }
     }
     
-    private void createTables() throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
-            // 创建 volunteers 表
-            try (Statement statement = connection.createStatement()) {
-                String createVolunteersTable = "CREATE TABLE IF NOT EXISTS volunteers (" +
-                        "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
-                        "uuid VARCHAR(36) NOT NULL UNIQUE, " +
-                        "group_name VARCHAR(32) NOT NULL, " +
-                        "volunteer_id VARCHAR(8) NOT NULL, " +
-                        "daily_ban_used INTEGER NOT NULL DEFAULT 0, " +
-                        "daily_mute_used INTEGER NOT NULL DEFAULT 0, " +
-                        "last_reset DATETIME DEFAULT CURRENT_TIMESTAMP" +
-                        ")";
-                
-            // SQLite 使用不同的自增语法（SQLite 实际上是 AUTOINCREMENT 但不需要声明）
-            if ("sqlite".equalsIgnoreCase(databaseType)) {
-                createVolunteersTable = createVolunteersTable.replace("AUTO_INCREMENT", "");
+    /**
+     * 创建只读副本连接池，连接失败时所有查询继续使用主库
+     */
+    private void setupReplica() {
+        ConfigManager config = plugin.getConfigManager();
+        String jdbcUrl = config.getReplicaJdbcUrl();
+        if (jdbcUrl.isEmpty()) {
+            if (dialect != SqlDialect.MYSQL) {
+                plugin.getLogger().warning("SQLite 下只读副本需要通过 jdbc-url 指定，已忽略副本配置");
+                return;
             }
-
-            statement.executeUpdate(createVolunteersTable);
+            jdbcUrl = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true&characterEncoding=utf8mb4&connectTimeout=30000&socketTimeout=60000",
+                config.getReplicaHost(),
+                config.getReplicaPort(),
+                config.getReplicaDatabase());
         }
-
-        // 创建 punishments 表
-        try (Statement statement = connection.createStatement()) {
-            String createPunishmentsTable = "CREATE TABLE IF NOT EXISTS punishments (" +
-                "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
-                "target_uuid VARCHAR(36) NOT NULL, " +
-                "volunteer_id VARCHAR(8) NOT NULL, " +
-                "type VARCHAR(10) NOT NULL, " +
-                "duration INTEGER NOT NULL, " +
-                "reason TEXT, " +
-                "issued_at DATETIME NOT NULL, " +
-                "expires_at DATETIME, " +
-                "is_active BOOLEAN NOT NULL DEFAULT TRUE" +
-            ")";
-
-            // SQLite 使用不同的自增语法（SQLite 实际上是 AUTOINCREMENT 但不需要声明）
-            if ("sqlite".equalsIgnoreCase(databaseType)) {
-                createPunishmentsTable = createPunishmentsTable.replace("AUTO_INCREMENT", "");
+        
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("VolunteerPunish-replica");
+        hikariConfig.setJdbcUrl(jdbcUrl);
+        hikariConfig.setUsername(config.getReplicaUsername());
+        hikariConfig.setPassword(config.getReplicaPassword());
+        // SQLite 驱动不支持在连接建立后切换只读模式
+        hikariConfig.setReadOnly(jdbcUrl.startsWith("jdbc:mysql:"));
+        
+        applyPoolSettings(hikariConfig, config.getReplicaPoolSize());
+        hikariConfig.setConnectionTestQuery("SELECT 1");
+        
+        if (jdbcUrl.startsWith("jdbc:mysql:")) {
+            hikariConfig.addDataSourceProperty("cachePrepStmts", true);
+            hikariConfig.addDataSourceProperty("prepStmtCacheSize", 250);
+            hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", 2048);
+            hikariConfig.addDataSourceProperty("useServerPrepStmts", true);
+        }
+        
+        try {
+            replicaSource = new HikariDataSource(hikariConfig);
+            try (Connection testConnection = replicaSource.getConnection()) {
+                if (testConnection.isValid(5)) {
+                    plugin.getLogger().info("只读副本连接成功，处罚查询将使用副本");
+                }
             }
-                
-                statement.executeUpdate(createPunishmentsTable);
+            replicaPoolSize = config.getReplicaPoolSize();
+        } catch (Exception e) {
+            plugin.getLogger().warning("只读副本连接失败，所有查询将使用主库: " + e.getMessage());
+            if (replicaSource != null) {
+                replicaSource.close();
+                replicaSource = null;
             }
         }
     }
     
+    /**
+     * 选择读取指定玩家处罚记录使用的连接池
+     * 本服务器最近写入过该玩家的处罚记录时使用主库，避免因复制延迟读到旧数据
+     */
+    private DataSource readSource(UUID uuid) {
+        if (replicaSource == null) {
+            return queryPool();
+        }
+        Long writtenAt = recentWrites.get(uuid);
+        if (writtenAt != null) {
+            if (System.currentTimeMillis() - writtenAt < config().getReplicaStickyPrimary()) {
+                return queryPool();
+            }
+            recentWrites.remove(uuid, writtenAt);
+        }
+        return replicaSource;
+    }
+    
+    /**
+     * 主库上的查询使用的连接池（SQLite 为只读连接池，MySQL 与写入共用）
+     */
+    private DataSource queryPool() {
+        return readPool != null ? readPool : dataSource;
+    }
+    
+    /**
+     * 记录玩家的处罚记录被写入
+     */
+    private void markWritten(UUID uuid) {
+        if (replicaSource == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        recentWrites.put(uuid, now);
+        // 清理早已过期的记录，防止长期运行时无限增长
+        if (recentWrites.size() > 1024) {
+            long sticky = config().getReplicaStickyPrimary();
+            recentWrites.values().removeIf(writtenAt -> now - writtenAt >= sticky);
+        }
+    }
+    
+    private void createTables() throws SQLException {
+        // 表结构和索引由版本化迁移统一管理
+        new SchemaMigrator(plugin.getLogger(), dialect).migrate(dataSource);
+    }
+    
     public CompletableFuture<Volunteer> getVolunteerByUuid(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection connection = dataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(
-                         "SELECT * FROM volunteers WHERE uuid = ?")) {
-                
-                statement.setString(1, uuid.toString());
-                try (ResultSet rs = statement.executeQuery()) {
-                    if (rs.next()) {
-                        Volunteer volunteer = new Volunteer();
-                        volunteer.setId(rs.getInt("id"));
-                        volunteer.setUuid(UUID.fromString(rs.getString("uuid")));
-                        volunteer.setGroupName(rs.getString("group_name"));
-                        volunteer.setVolunteerId(rs.getString("volunteer_id"));
-                        volunteer.setDailyBanUsed(rs.getInt("daily_ban_used"));
-                        volunteer.setDailyMuteUsed(rs.getInt("daily_mute_used"));
-                        volunteer.setLastReset(rs.getTimestamp("last_reset"));
-                        return volunteer;
-                    }
-                }
+        return supplyAsync("getVolunteerByUuid", () -> {
+            try (Connection connection = queryPool().getConnection()) {
+                return volunteers.findByUuid(connection, uuid);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to get volunteer by UUID: " + uuid, e);
+                logFailure("Failed to get volunteer by UUID: " + uuid, e);
+                throw new IllegalStateException("查询志愿者失败", e);
             }
-            return null;
         });
     }
     
     public CompletableFuture<Volunteer> getVolunteerByVolunteerId(String volunteerId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection connection = dataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(
-                         "SELECT * FROM volunteers WHERE volunteer_id = ?")) {
-                
-                statement.setString(1, volunteerId);
-                try (ResultSet rs = statement.executeQuery()) {
-                    if (rs.next()) {
-                        Volunteer volunteer = new Volunteer();
-                        volunteer.setId(rs.getInt("id"));
-                        volunteer.setUuid(UUID.fromString(rs.getString("uuid")));
-                        volunteer.setGroupName(rs.getString("group_name"));
-                        volunteer.setVolunteerId(rs.getString("volunteer_id"));
-                        volunteer.setDailyBanUsed(rs.getInt("daily_ban_used"));
-                        volunteer.setDailyMuteUsed(rs.getInt("daily_mute_used"));
-                        volunteer.setLastReset(rs.getTimestamp("last_reset"));
-                        return volunteer;
-                    }
-                }
+        return supplyAsync("getVolunteerByVolunteerId", () -> {
+            try (Connection connection = queryPool().getConnection()) {
+                return volunteers.findByVolunteerId(connection, volunteerId);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to get volunteer by ID: " + volunteerId, e);
+                logFailure("Failed to get volunteer by ID: " + volunteerId, e);
+                throw new IllegalStateException("查询志愿者失败", e);
+            }
+        });
+    }
+    
+    /**
+     * 获取所有志愿者（用于启动时填充缓存）
+     */
+    public CompletableFuture<List<Volunteer>> getAllVolunteers() {
+        return supplyAsync("getAllVolunteers", () -> {
+            try (Connection connection = queryPool().getConnection()) {
+                return volunteers.findAll(connection);
+            } catch (SQLException e) {
+                logFailure("Failed to get all volunteers", e);
+                throw new IllegalStateException("加载志愿者列表失败", e);
             }
-            return null;
         });
     }
     
     public CompletableFuture<Void> saveVolunteer(Volunteer volunteer) {
-        return CompletableFuture.runAsync(() -> {
+        return runAsync("saveVolunteer", () -> {
             try (Connection connection = dataSource.getConnection()) {
-                String sql = "INSERT OR REPLACE INTO volunteers (uuid, group_name, volunteer_id, daily_ban_used, daily_mute_used, last_reset) " +
-                        "VALUES (?, ?, ?, ?, ?, ?)";
-                
-                // MySQL 使用不同的语法
-                if ("mysql".equalsIgnoreCase(databaseType)) {
-                    sql = "INSERT INTO volunteers (uuid, group_name, volunteer_id, daily_ban_used, daily_mute_used, last_reset) " +
-                            "VALUES (?, ?, ?, ?, ?, ?) " +
-                            "ON DUPLICATE KEY UPDATE " +
-                            "group_name = VALUES(group_name), " +
-                            "volunteer_id = VALUES(volunteer_id), " +
-                            "daily_ban_used = VALUES(daily_ban_used), " +
-                            "daily_mute_used = VALUES(daily_mute_used), " +
-                            "last_reset = VALUES(last_reset)";
-                }
-                
-                try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                    statement.setString(1, volunteer.getUuid().toString());
-                    statement.setString(2, volunteer.getGroupName());
-                    statement.setString(3, volunteer.getVolunteerId());
-                    statement.setInt(4, volunteer.getDailyBanUsed());
-                    statement.setInt(5, volunteer.getDailyMuteUsed());
-                    statement.setTimestamp(6, volunteer.getLastReset());
-                    
-                    statement.executeUpdate();
-                }
+                volunteers.save(connection, volunteer);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to save volunteer: " + volunteer.getUuid(), e);
+                logFailure("Failed to save volunteer: " + volunteer.getUuid(), e);
+                throw new IllegalStateException("保存志愿者失败", e);
             }
         });
     }
     
-    public CompletableFuture<Void> removeVolunteer(UUID uuid) {
-        return CompletableFuture.runAsync(() -> {
+    /**
+     * 只修改志愿者ID，不影响配额计数
+     * @return 志愿者存在且修改成功时返回true
+     */
+    public CompletableFuture<Boolean> updateVolunteerId(UUID uuid, String volunteerId) {
+        return supplyAsync("updateVolunteerId", () -> {
             try (Connection connection = dataSource.getConnection()) {
-                String sql = "DELETE FROM volunteers WHERE uuid = ?";
-                
-                try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                    statement.setString(1, uuid.toString());
-                    statement.executeUpdate();
-                }
+                return volunteers.updateVolunteerId(connection, uuid, volunteerId);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to remove volunteer: " + uuid, e);
+                logFailure("Failed to update volunteer ID: " + uuid, e);
+                throw new IllegalStateException("修改志愿者ID失败", e);
             }
         });
     }
     
-    public CompletableFuture<List<Punishment>> getPunishmentsByTargetUuid(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<Punishment> punishments = new ArrayList<>();
-            try (Connection connection = dataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(
-                         "SELECT * FROM punishments WHERE target_uuid = ? ORDER BY issued_at DESC")) {
-                
-                statement.setString(1, uuid.toString());
-                try (ResultSet rs = statement.executeQuery()) {
-                    while (rs.next()) {
-                        Punishment punishment = new Punishment();
-                        punishment.setId(rs.getInt("id"));
-                        punishment.setTargetUuid(UUID.fromString(rs.getString("target_uuid")));
-                        punishment.setVolunteerId(rs.getString("volunteer_id"));
-                        punishment.setType(Punishment.Type.valueOf(rs.getString("type")));
-                        punishment.setDuration(rs.getLong("duration"));
-                        punishment.setReason(rs.getString("reason"));
-                        punishment.setIssuedAt(rs.getTimestamp("issued_at"));
-                        punishment.setExpiresAt(rs.getTimestamp("expires_at"));
-                        punishment.setActive(rs.getBoolean("is_active"));
-                        punishments.add(punishment);
-                    }
-                }
+    /**
+     * 只修改志愿者的身份组，不影响配额计数
+     * @return 志愿者存在且修改成功时返回true
+     */
+    public CompletableFuture<Boolean> updateVolunteerGroup(UUID uuid, String groupName) {
+        return supplyAsync("updateVolunteerGroup", () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return volunteers.updateGroup(connection, uuid, groupName);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to get punishments by target UUID: " + uuid, e);
+                logFailure("Failed to update volunteer group: " + uuid, e);
+                throw new IllegalStateException("修改志愿者身份组失败", e);
             }
-            return punishments;
         });
     }
     
-    public CompletableFuture<Boolean> isBanned(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection connection = dataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(
-                         "SELECT 1 FROM punishments WHERE target_uuid = ? AND type = 'BAN' AND is_active = TRUE AND (expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP)")) {
-                
-                statement.setString(1, uuid.toString());
-                try (ResultSet rs = statement.executeQuery()) {
-                    return rs.next(); // 如果有结果，说明玩家被封禁
-                }
+    /**
+     * 原子性地消耗一次志愿者的每日配额
+     * 使用单条条件 UPDATE 完成检查和计数，避免并发执行时的读-改-写竞争
+     * 上次重置早于当前窗口时，在同一条语句中先将计数清零再计数
+     * @param uuid 志愿者UUID
+     * @param type 处罚类型
+     * @param limit 每日配额上限
+     * @param windowStart 当前配额窗口的起点，为null时不重置
+     * @return 配额未用完且计数成功时返回true
+     */
+    public CompletableFuture<Boolean> tryConsumeQuota(UUID uuid, Punishment.Type type, int limit, Timestamp windowStart) {
+        return supplyAsync("tryConsumeQuota", () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return volunteers.tryConsumeQuota(connection, uuid, type, limit, windowStart);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to check if player is banned: " + uuid, e);
+                logFailure("Failed to consume quota for volunteer: " + uuid + ", type: " + type, e);
                 return false;
             }
         });
     }
     
-    public CompletableFuture<Boolean> isMuted(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection connection = dataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(
-                         "SELECT 1 FROM punishments WHERE target_uuid = ? AND type = 'MUTE' AND is_active = TRUE AND (expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP)")) {
-                
-                statement.setString(1, uuid.toString());
-                try (ResultSet rs = statement.executeQuery()) {
-                    return rs.next(); // 如果有结果，说明玩家被禁言
-                }
+    public CompletableFuture<Void> removeVolunteer(UUID uuid) {
+        return runAsync("removeVolunteer", () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                volunteers.delete(connection, uuid);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to check if player is muted: " + uuid, e);
-                return false;
+                logFailure("Failed to remove volunteer: " + uuid, e);
+                throw new IllegalStateException("移除志愿者失败", e);
             }
         });
     }
     
-    public CompletableFuture<Void> savePunishment(Punishment punishment) {
-        return CompletableFuture.runAsync(() -> {
-            try (Connection connection = dataSource.getConnection()) {
-                String sql = "INSERT INTO punishments (target_uuid, volunteer_id, type, duration, reason, issued_at, expires_at, is_active) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-                
-                try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                    statement.setString(1, punishment.getTargetUuid().toString());
-                    statement.setString(2, punishment.getVolunteerId());
-                    statement.setString(3, punishment.getType().name());
-                    statement.setLong(4, punishment.getDuration());
-                    statement.setString(5, punishment.getReason());
-                    statement.setTimestamp(6, new Timestamp(punishment.getIssuedAt().getTime()));
-                    
-                    if (punishment.getExpiresAt() != null) {
-                        statement.setTimestamp(7, new Timestamp(punishment.getExpiresAt().getTime()));
-                    } else {
-                        statement.setNull(7, Types.TIMESTAMP);
-                    }
-                    
-                    statement.setBoolean(8, punishment.isActive());
-                    
-                    statement.executeUpdate();
-                }
+    /**
+     * 获取所有当前生效的处罚（用于启动时填充生效处罚索引）
+     */
+    public CompletableFuture<List<Punishment>> getActivePunishments() {
+        return supplyAsync("getActivePunishments", () -> {
+            try (Connection connection = queryPool().getConnection()) {
+                return punishments.findAllActive(connection, System.currentTimeMillis());
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to save punishment for target: " + punishment.getTargetUuid(), e);
+                logFailure("Failed to get active punishments", e);
+                throw new IllegalStateException("加载生效的处罚记录失败", e);
             }
         });
     }
     
-    public CompletableFuture<Void> deactivatePunishments(UUID targetUuid, Punishment.Type type) {
-        return CompletableFuture.runAsync(() -> {
-            try (Connection connection = dataSource.getConnection()) {
-                String sql = "UPDATE punishments SET is_active = FALSE WHERE target_uuid = ? AND type = ? AND is_active = TRUE";
-                
-                try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                    statement.setString(1, targetUuid.toString());
-                    statement.setString(2, type.name());
-                    
-                    statement.executeUpdate();
-                }
+    /**
+     * 获取所有仍处于生效状态且有到期时间的处罚（用于到期任务）
+     */
+    public CompletableFuture<List<Punishment>> getExpiringPunishments() {
+        return supplyAsync("getExpiringPunishments", () -> {
+            try (Connection connection = queryPool().getConnection()) {
+                return punishments.findExpiring(connection);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to deactivate punishments for target: " + targetUuid + ", type: " + type, e);
+                logFailure("Failed to get expiring punishments", e);
+                throw new IllegalStateException("加载待到期的处罚记录失败", e);
             }
         });
     }
     
     /**
-     * 重置所有志愿者的每日配额计数
-     * @return CompletableFuture表示操作完成
+     * 批量停用所有在指定时间之前到期的处罚
+     * @param now 当前时间
+     * @return 停用的记录数
      */
-    public CompletableFuture<Void> resetDailyQuotas() {
-        return CompletableFuture.runAsync(() -> {
+    public CompletableFuture<Integer> deactivateExpiredPunishments(Date now) {
+        return supplyAsync("deactivateExpiredPunishments", () -> {
             try (Connection connection = dataSource.getConnection()) {
-                String sql = "UPDATE volunteers SET daily_ban_used = 0, daily_mute_used = 0, last_reset = CURRENT_TIMESTAMP";
-                
-                // SQLite使用不同的时间戳函数
-                if ("sqlite".equalsIgnoreCase(databaseType)) {
-                    sql = "UPDATE volunteers SET daily_ban_used = 0, daily_mute_used = 0, last_reset = datetime('now')";
-                }
-                
-                try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                    int updatedRows = statement.executeUpdate();
-                    plugin.getLogger().info("已重置 " + updatedRows + " 名志愿者的每日配额");
+                return punishments.deactivateExpired(connection, now.getTime());
+            } catch (SQLException e) {
+                logFailure("Failed to deactivate expired punishments", e);
+                return 0;
+            }
+        });
+    }
+    
+    /**
+     * 统计玩家的处罚记录数量
+     */
+    public CompletableFuture<Integer> countPunishmentsByTargetUuid(UUID uuid) {
+        return supplyAsync("countPunishmentsByTargetUuid", () -> {
+            try (Connection connection = readSource(uuid).getConnection()) {
+                return punishments.countByTarget(connection, uuid);
+            } catch (SQLException e) {
+                logFailure("Failed to count punishments by target UUID: " + uuid, e);
+                return 0;
+            }
+        });
+    }
+    
+    /**
+     * 按游标分页查询玩家的处罚记录（按时间倒序），从游标记录之后先跳过 skip 条再取一页
+     * 跳过的记录只读取索引列，不使用 OFFSET
+     * @param issuedAt 游标记录（如上一页最后一条）的处罚时间，null 表示从最新的记录开始
+     * @param id 游标记录的ID
+     * @param skip 跳过的记录数，连续翻页时为0
+     * @param limit 每页记录数
+     */
+    public CompletableFuture<List<Punishment>> getPunishmentPageAfter(UUID uuid, Date issuedAt, int id, int skip, int limit) {
+        return supplyAsync("getPunishmentPageAfter", () -> {
+            long cursorTime = issuedAt != null ? issuedAt.getTime() : Long.MAX_VALUE;
+            int cursorId = issuedAt != null ? id : Integer.MAX_VALUE;
+            try (Connection connection = readSource(uuid).getConnection()) {
+                if (skip > 0) {
+                    long[] key = punishments.findKeyAfter(connection, uuid, cursorTime, cursorId, skip);
+                    if (key == null) {
+                        return new ArrayList<Punishment>();
+                    }
+                    cursorTime = key[0];
+                    cursorId = (int) key[1];
                 }
+                return punishments.findPageAfter(connection, uuid, cursorTime, cursorId, limit);
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to reset daily quotas", e);
+                logFailure("Failed to get punishment page by target UUID: " + uuid, e);
             }
+            return new ArrayList<>();
         });
     }
     
+    /**
+     * 获取玩家当前生效的指定类型处罚（永久处罚优先，其次是到期时间最晚的）
+     * @param uuid 玩家UUID
+     * @param type 处罚类型
+     * @return 生效的处罚记录，没有则为null
+     */
+    public CompletableFuture<Punishment> getActivePunishment(UUID uuid, Punishment.Type type) {
+        return supplyAsync("getActivePunishment", () -> {
+            // 写入队列中尚未写入的操作优先，不需要等待写入
+            PunishmentWriteQueue.PendingState pending = writeQueue.pendingState(uuid, type, System.currentTimeMillis());
+            if (pending != null) {
+                return pending.getPunishment();
+            }
+            try (Connection connection = readSource(uuid).getConnection()) {
+                return punishments.findActive(connection, uuid, type, System.currentTimeMillis());
+            } catch (SQLException e) {
+                logFailure("Failed to get active punishment: " + uuid + ", type: " + type, e);
+            }
+            return null;
+        });
+    }
+    
+    public CompletableFuture<Boolean> isBanned(UUID uuid) {
+        return supplyAsync("isBanned", () -> {
+            PunishmentWriteQueue.PendingState pending = writeQueue.pendingState(uuid, Punishment.Type.BAN, System.currentTimeMillis());
+            if (pending != null) {
+                return pending.isActive();
+            }
+            try (Connection connection = readSource(uuid).getConnection()) {
+                return punishments.isActive(connection, uuid, Punishment.Type.BAN, System.currentTimeMillis());
+            } catch (SQLException e) {
+                logFailure("Failed to check if player is banned: " + uuid, e);
+                return false;
+            }
+        });
+    }
+    
+    public CompletableFuture<Boolean> isMuted(UUID uuid) {
+        return supplyAsync("isMuted", () -> {
+            PunishmentWriteQueue.PendingState pending = writeQueue.pendingState(uuid, Punishment.Type.MUTE, System.currentTimeMillis());
+            if (pending != null) {
+                return pending.isActive();
+            }
+            try (Connection connection = readSource(uuid).getConnection()) {
+                return punishments.isActive(connection, uuid, Punishment.Type.MUTE, System.currentTimeMillis());
+            } catch (SQLException e) {
+                logFailure("Failed to check if player is muted: " + uuid, e);
+                return false;
+            }
+        });
+    }
+    
+    /**
+     * 保存处罚记录（进入批量写入队列）
+     * @return 记录写入数据库后完成
+     */
+    public CompletableFuture<Void> savePunishment(Punishment punishment) {
+        markWritten(punishment.getTargetUuid());
+        return writeQueue.enqueueInsert(punishment);
+    }
+    
+    /**
+     * 停用玩家指定类型的所有处罚（进入批量写入队列）
+     * @return 写入数据库后完成
+     */
+    public CompletableFuture<Void> deactivatePunishments(UUID targetUuid, Punishment.Type type) {
+        markWritten(targetUuid);
+        return writeQueue.enqueueDeactivate(targetUuid, type);
+    }
+    
     public void close() {
+        // 写入队列中剩余的处罚操作
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        
+        // 先等待已提交的数据库任务完成，再关闭连接池
+        if (executor != null) {
+            executor.shutdown(10000L);
+        }
+        
+        if (replicaSource != null && !replicaSource.isClosed()) {
+            replicaSource.close();
+        }
+        
+        if (readPool != null && !readPool.isClosed()) {
+            readPool.close();
+        }
+        
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
     }
     
+    /**
+     * 当前使用的数据库方言，数据库类型不受支持时为null
+     */
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+    
+    public DatabaseExecutor getExecutor() {
+        return executor;
+    }
+    
+    public PunishmentWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+    
+    /**
+     * 连接池状态（活跃/空闲/等待连接数），数据库未初始化时为null
+     */
+    public HikariPoolMXBean getPoolStats() {
+        return dataSource != null ? dataSource.getHikariPoolMXBean() : null;
+    }
+    
+    /**
+     * SQLite 只读连接池状态，MySQL 下为null
+     */
+    public HikariPoolMXBean getReadPoolStats() {
+        return readPool != null ? readPool.getHikariPoolMXBean() : null;
+    }
+    
+    /**
+     * 只读副本连接池状态，未配置副本时为null
+     */
+    public HikariPoolMXBean getReplicaPoolStats() {
+        return replicaSource != null ? replicaSource.getHikariPoolMXBean() : null;
+    }
+    
+    private ConfigManager config() {
+        return plugin.getConfigManager();
+    }
+    
+    /**
+     * 记录数据库操作失败，并计入当前操作的错误次数
+     */
+    private void logFailure(String message, SQLException e) {
+        plugin.getLogger().log(Level.SEVERE, message, e);
+        OperationStats stats = currentOperation.get();
+        if (stats != null) {
+            stats.recordError();
+            // 每次操作最多计一次错误
+            currentOperation.remove();
+        }
+    }
+    
+    /**
+     * 在数据库线程池中执行任务，队列已满时返回失败的 future 而不是抛出异常
+     * 延迟从提交时开始计算，包含在线程池队列中等待的时间
+     * @param operation 操作名称，用于统计
+     */
+    private <T> CompletableFuture<T> supplyAsync(String operation, Supplier<T> task) {
+        OperationStats stats = metrics.operation(operation);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (executor == null) {
+            stats.recordError();
+            future.completeExceptionally(new IllegalStateException("数据库未初始化"));
+            return future;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                currentOperation.set(stats);
+                try {
+                    return task.get();
+                } catch (RuntimeException e) {
+                    if (currentOperation.get() != null) {
+                        stats.recordError();
+                    }
+                    throw e;
+                } finally {
+                    currentOperation.remove();
+                    stats.record(System.nanoTime() - start);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            stats.recordError();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+    
+    private CompletableFuture<Void> runAsync(String operation, Runnable task) {
+        return supplyAsync(operation, () -> {
+            task.run();
+            return null;
+        });
+    }
+    
     /**
      * 测试数据库连接
      */
     public CompletableFuture<Boolean> testConnection() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync("testConnection", () -> {
             try (Connection connection = dataSource.getConnection()) {
                 return connection.isValid(5);
             } catch (SQLException e) {
@@ -0,0 +1,68 @@
+package cn.popcraft.volunteerpunish.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 只创建索引的迁移
+ * MySQL 的 DDL 会自动提交，中途失败时部分索引已经创建而版本尚未记录，重新执行时跳过已存在的索引
+ * SQLite 直接使用 CREATE INDEX IF NOT EXISTS
+ */
+final class IndexMigration extends Migration {
+    private final List<Index> indexes = new ArrayList<>();
+    
+    IndexMigration(int version, String description) {
+        super(version, description);
+    }
+    
+    /**
+     * 添加一个索引
+     * @param columns 索引列，如 "target_uuid, issued_at"
+     */
+    IndexMigration index(String name, String table, String columns) {
+        indexes.add(new Index(name, table, columns));
+        return this;
+    }
+    
+    @Override
+    public void migrate(Connection connection, SqlDialect dialect) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Index index : indexes) {
+                if (dialect == SqlDialect.SQLITE) {
+                    statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + index.name + " ON " + index.table + " (" + index.columns + ")");
+                } else if (!indexExists(connection, index.table, index.name)) {
+                    statement.executeUpdate("CREATE INDEX " + index.name + " ON " + index.table + " (" + index.columns + ")");
+                }
+            }
+        }
+    }
+    
+    private static boolean indexExists(Connection connection, String table, String name) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+            while (rs.next()) {
+                if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static final class Index {
+        private final String name;
+        private final String table;
+        private final String columns;
+        
+        Index(String name, String table, String columns) {
+            this.name = name;
+            this.table = table;
+            this.columns = columns;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package cn.popcraft.volunteerpunish.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 单个数据库结构迁移步骤
+ * 版本号必须递增，已发布的迁移不可修改，结构变更需要追加新的迁移
+ */
+public abstract class Migration {
+    private final int version;
+    private final String description;
+    
+    protected Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+    
+    /**
+     * 执行迁移
+     * @param connection 数据库连接
+     * @param dialect 数据库方言
+     */
+    public abstract void migrate(Connection connection, SqlDialect dialect) throws SQLException;
+    
+    public int getVersion() {
+        return version;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * 创建仅由SQL语句组成的迁移
+     * @param sqliteStatements SQLite 下执行的语句
+     * @param mysqlStatements MySQL 下执行的语句
+     */
+    public static Migration of(int version, String description, String[] sqliteStatements, String[] mysqlStatements) {
+        return new Migration(version, description) {
+            @Override
+            public void migrate(Connection connection, SqlDialect dialect) throws SQLException {
+                String[] statements = dialect == SqlDialect.SQLITE ? sqliteStatements : mysqlStatements;
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : statements) {
+                        statement.executeUpdate(sql);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,223 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * punishments 表的读写
+ * 查询使用固定的列顺序，结果按位置映射，语句通过 StatementCache 在连接上复用
+ * target_uuid 为 16 字节 UUID，时间参数为毫秒时间戳，type 为 Punishment.Type 的编号
+ */
+final class PunishmentDao {
+    // 查询列的顺序与 map 中的下标一致
+    static final String COLUMNS = "id, target_uuid, volunteer_id, type, duration, reason, issued_at, expires_at, is_active";
+    
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM punishments";
+    private static final String NOT_EXPIRED = "(expires_at IS NULL OR expires_at > ?)";
+    
+    // 热点查询语句（包内可见，供基准测试复用）
+    static final String IS_BANNED_SQL =
+            "SELECT 1 FROM punishments WHERE target_uuid = ? AND type = " + Punishment.Type.BAN.getCode() +
+            " AND is_active = TRUE AND " + NOT_EXPIRED;
+    static final String IS_MUTED_SQL =
+            "SELECT 1 FROM punishments WHERE target_uuid = ? AND type = " + Punishment.Type.MUTE.getCode() +
+            " AND is_active = TRUE AND " + NOT_EXPIRED;
+    static final String ACTIVE_PUNISHMENT_SQL =
+            SELECT_SQL + " WHERE target_uuid = ? AND type = ? AND is_active = TRUE AND " + NOT_EXPIRED + " " +
+            "ORDER BY CASE WHEN expires_at IS NULL THEN 1 ELSE 0 END DESC, expires_at DESC LIMIT 1";
+    private static final String AFTER_CURSOR = "target_uuid = ? AND (issued_at < ? OR (issued_at = ? AND id < ?)) " +
+            "ORDER BY issued_at DESC, id DESC LIMIT ?";
+    static final String PUNISHMENT_PAGE_AFTER_SQL = SELECT_SQL + " WHERE " + AFTER_CURSOR;
+    // 跳页时只读取索引中的列来定位游标
+    static final String PUNISHMENT_KEYS_AFTER_SQL = "SELECT issued_at, id FROM punishments WHERE " + AFTER_CURSOR;
+    
+    private static final String COUNT_BY_TARGET_SQL = "SELECT COUNT(*) FROM punishments WHERE target_uuid = ?";
+    private static final String ALL_ACTIVE_SQL = SELECT_SQL + " WHERE is_active = TRUE AND " + NOT_EXPIRED;
+    private static final String EXPIRING_SQL = SELECT_SQL + " WHERE is_active = TRUE AND expires_at IS NOT NULL";
+    private static final String DEACTIVATE_EXPIRED_SQL =
+            "UPDATE punishments SET is_active = FALSE WHERE is_active = TRUE AND expires_at IS NOT NULL AND expires_at <= ?";
+    
+    // 批量写入队列使用的语句
+    static final String INSERT_SQL = "INSERT INTO punishments (target_uuid, volunteer_id, type, duration, reason, issued_at, expires_at, is_active) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String DEACTIVATE_SQL = "UPDATE punishments SET is_active = FALSE WHERE target_uuid = ? AND type = ? AND is_active = TRUE";
+    
+    private final StatementCache statements;
+    
+    PunishmentDao(StatementCache statements) {
+        this.statements = statements;
+    }
+    
+    /**
+     * 玩家在指定时间是否有生效的指定类型处罚
+     */
+    boolean isActive(Connection connection, UUID uuid, Punishment.Type type, long now) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection,
+            type == Punishment.Type.BAN ? IS_BANNED_SQL : IS_MUTED_SQL);
+        statement.setBytes(1, UuidBytes.toBytes(uuid));
+        statement.setLong(2, now);
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next();
+        }
+    }
+    
+    /**
+     * 获取生效的指定类型处罚（永久处罚优先，其次是到期时间最晚的），没有则为null
+     */
+    Punishment findActive(Connection connection, UUID uuid, Punishment.Type type, long now) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, ACTIVE_PUNISHMENT_SQL);
+        statement.setBytes(1, UuidBytes.toBytes(uuid));
+        statement.setInt(2, type.getCode());
+        statement.setLong(3, now);
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? map(rs) : null;
+        }
+    }
+    
+    int countByTarget(Connection connection, UUID uuid) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, COUNT_BY_TARGET_SQL);
+        statement.setBytes(1, UuidBytes.toBytes(uuid));
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    /**
+     * 从上一页最后一条记录（处罚时间和ID）之后开始查询一页
+     * 从最新的记录开始时传入 Long.MAX_VALUE 和 Integer.MAX_VALUE
+     */
+    List<Punishment> findPageAfter(Connection connection, UUID uuid, long issuedAt, int id, int limit) throws SQLException {
+        return mapAll(bindAfterCursor(statements.prepare(connection, PUNISHMENT_PAGE_AFTER_SQL), uuid, issuedAt, id, limit));
+    }
+    
+    /**
+     * 从游标之后跳过 count 条记录，返回最后一条被跳过记录的 {处罚时间, ID}，记录不足时为null
+     * 只读取索引中的列，代替 OFFSET 读取再丢弃整行
+     */
+    long[] findKeyAfter(Connection connection, UUID uuid, long issuedAt, int id, int count) throws SQLException {
+        PreparedStatement statement = bindAfterCursor(statements.prepare(connection, PUNISHMENT_KEYS_AFTER_SQL),
+            uuid, issuedAt, id, count);
+        long[] key = null;
+        int read = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                if (key == null) {
+                    key = new long[2];
+                }
+                key[0] = rs.getLong(1);
+                key[1] = rs.getInt(2);
+                read++;
+            }
+        }
+        return read == count ? key : null;
+    }
+    
+    private static PreparedStatement bindAfterCursor(PreparedStatement statement, UUID uuid, long issuedAt, int id,
+                                                     int limit) throws SQLException {
+        statement.setBytes(1, UuidBytes.toBytes(uuid));
+        statement.setLong(2, issuedAt);
+        statement.setLong(3, issuedAt);
+        statement.setInt(4, id);
+        statement.setInt(5, limit);
+        return statement;
+    }
+    
+    /**
+     * 所有在指定时间仍生效的处罚
+     */
+    List<Punishment> findAllActive(Connection connection, long now) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, ALL_ACTIVE_SQL);
+        statement.setLong(1, now);
+        return mapAll(statement);
+    }
+    
+    /**
+     * 所有仍生效且有到期时间的处罚
+     */
+    List<Punishment> findExpiring(Connection connection) throws SQLException {
+        return mapAll(statements.prepare(connection, EXPIRING_SQL));
+    }
+    
+    /**
+     * 停用所有在指定时间之前到期的处罚
+     * @return 停用的记录数
+     */
+    int deactivateExpired(Connection connection, long now) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, DEACTIVATE_EXPIRED_SQL);
+        statement.setLong(1, now);
+        return statement.executeUpdate();
+    }
+    
+    /**
+     * 批量插入使用的语句，参数由 bindInsert 绑定
+     */
+    PreparedStatement insertStatement(Connection connection) throws SQLException {
+        return statements.prepare(connection, INSERT_SQL);
+    }
+    
+    /**
+     * 批量停用使用的语句，参数由 bindDeactivate 绑定
+     */
+    PreparedStatement deactivateStatement(Connection connection) throws SQLException {
+        return statements.prepare(connection, DEACTIVATE_SQL);
+    }
+    
+    static void bindInsert(PreparedStatement statement, Punishment punishment) throws SQLException {
+        statement.setBytes(1, UuidBytes.toBytes(punishment.getTargetUuid()));
+        statement.setString(2, punishment.getVolunteerId());
+        statement.setInt(3, punishment.getType().getCode());
+        statement.setLong(4, punishment.getDuration());
+        statement.setString(5, punishment.getReason());
+        statement.setLong(6, punishment.getIssuedAt().getTime());
+        
+        if (punishment.getExpiresAt() != null) {
+            statement.setLong(7, punishment.getExpiresAt().getTime());
+        } else {
+            statement.setNull(7, Types.BIGINT);
+        }
+        
+        statement.setBoolean(8, punishment.isActive());
+    }
+    
+    static void bindDeactivate(PreparedStatement statement, UUID targetUuid, Punishment.Type type) throws SQLException {
+        statement.setBytes(1, UuidBytes.toBytes(targetUuid));
+        statement.setInt(2, type.getCode());
+    }
+    
+    private static List<Punishment> mapAll(PreparedStatement statement) throws SQLException {
+        List<Punishment> punishments = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                punishments.add(map(rs));
+            }
+        }
+        return punishments;
+    }
+    
+    /**
+     * 按 COLUMNS 的顺序映射一行
+     */
+    static Punishment map(ResultSet rs) throws SQLException {
+        Punishment punishment = new Punishment();
+        punishment.setId(rs.getInt(1));
+        punishment.setTargetUuid(UuidBytes.fromBytes(rs.getBytes(2)));
+        punishment.setVolunteerId(rs.getString(3));
+        punishment.setType(Punishment.Type.fromCode(rs.getInt(4)));
+        punishment.setDuration(rs.getLong(5));
+        punishment.setReason(rs.getString(6));
+        punishment.setIssuedAt(new Date(rs.getLong(7)));
+        long expiresAt = rs.getLong(8);
+        punishment.setExpiresAt(rs.wasNull() ? null : new Date(expiresAt));
+        punishment.setActive(rs.getBoolean(9));
+        return punishment;
+    }
+}
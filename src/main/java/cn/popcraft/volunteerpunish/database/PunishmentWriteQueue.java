@@ -0,0 +1,294 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.metrics.OperationStats;
+import cn.popcraft.volunteerpunish.model.Punishment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * 处罚记录的延迟批量写入队列
+ * 新增和停用处罚先进入队列，达到批量大小或定时器触发时合并为 JDBC 批处理写入
+ * 队列保持提交顺序，连续的同类操作合并为一个批次
+ * 批处理失败时整批回滚后改为逐条写入，只有写入失败的操作返回失败的 future
+ * 操作在写入完成后才从队列中移除，读取处罚状态时先通过 pendingState 查看队列，不需要等待写入
+ */
+public class PunishmentWriteQueue {
+    private final Logger logger;
+    private final DataSource dataSource;
+    private final PunishmentDao punishments;
+    private final Executor executor;
+    private final int batchSize;
+    private final long flushInterval;
+    private final OperationStats stats;
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private ScheduledExecutorService timer;
+    
+    /**
+     * @param batchSize 达到该数量时立即写入
+     * @param flushInterval 定时写入间隔（毫秒）
+     * @param stats 批量写入的耗时统计
+     */
+    PunishmentWriteQueue(Logger logger, DataSource dataSource, PunishmentDao punishments, Executor executor, int batchSize,
+                         long flushInterval, OperationStats stats) {
+        this.logger = logger;
+        this.dataSource = dataSource;
+        this.punishments = punishments;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Math.max(10L, flushInterval);
+        this.stats = stats;
+    }
+    
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VolunteerPunish-DB-Flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+    
+    public CompletableFuture<Void> enqueueInsert(Punishment punishment) {
+        return enqueue(new PendingWrite(Kind.INSERT, punishment, null, null));
+    }
+    
+    public CompletableFuture<Void> enqueueDeactivate(UUID targetUuid, Punishment.Type type) {
+        return enqueue(new PendingWrite(Kind.DEACTIVATE, null, targetUuid, type));
+    }
+    
+    private CompletableFuture<Void> enqueue(PendingWrite write) {
+        queue.offer(write);
+        if (size.incrementAndGet() >= batchSize) {
+            scheduleFlush();
+        }
+        return write.future;
+    }
+    
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        } catch (RejectedExecutionException e) {
+            // 数据库线程池繁忙，交给定时器写入
+            flushScheduled.set(false);
+        }
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "写入处罚记录队列时发生错误", e);
+        }
+    }
+    
+    /**
+     * 立即写入队列中的所有操作（在调用线程中执行），由批量/定时写入和关闭时调用
+     * 写入期间操作仍留在队列中，完成后再按数量从队首移除（只有持有锁的线程会移除，新操作只会追加到队尾）
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<PendingWrite> writes = new ArrayList<>(queue);
+            if (writes.isEmpty()) {
+                return;
+            }
+            
+            long start = System.nanoTime();
+            try {
+                write(writes);
+                for (PendingWrite pending : writes) {
+                    pending.future.complete(null);
+                }
+            } catch (SQLException e) {
+                stats.recordError();
+                logger.log(Level.WARNING, "批量写入 " + writes.size() + " 条处罚操作失败，改为逐条写入", e);
+                writeEach(writes);
+            } finally {
+                stats.record(System.nanoTime() - start);
+                for (int i = 0; i < writes.size(); i++) {
+                    queue.poll();
+                }
+                size.addAndGet(-writes.size());
+            }
+        }
+    }
+    
+    /**
+     * 按提交顺序查看队列中（包括正在写入的）该玩家指定类型处罚的最终状态
+     * 生效的新处罚使其生效，停用操作使其失效，已到期的新记录（如解除记录）不改变状态
+     * @param now 判断到期的当前时间
+     * @return 队列中没有影响该状态的操作时为null，需要查询数据库
+     */
+    public PendingState pendingState(UUID targetUuid, Punishment.Type type, long now) {
+        PendingState state = null;
+        for (PendingWrite pending : queue) {
+            if (pending.kind == Kind.DEACTIVATE) {
+                if (pending.type == type && pending.targetUuid.equals(targetUuid)) {
+                    state = PendingState.INACTIVE;
+                }
+                continue;
+            }
+            Punishment punishment = pending.punishment;
+            if (punishment.getType() == type && punishment.isActive()
+                    && (punishment.getExpiresAt() == null || punishment.getExpiresAt().getTime() > now)
+                    && punishment.getTargetUuid().equals(targetUuid)) {
+                state = new PendingState(punishment);
+            }
+        }
+        return state;
+    }
+    
+    /**
+     * 按提交顺序逐条写入（自动提交），每条操作的 future 单独完成
+     * 每条使用新借出的连接，连接断开时连接池可以换用其他连接
+     */
+    private void writeEach(List<PendingWrite> writes) {
+        for (PendingWrite pending : writes) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (pending.kind == Kind.INSERT) {
+                    PreparedStatement insert = punishments.insertStatement(connection);
+                    PunishmentDao.bindInsert(insert, pending.punishment);
+                    insert.executeUpdate();
+                } else {
+                    PreparedStatement deactivate = punishments.deactivateStatement(connection);
+                    PunishmentDao.bindDeactivate(deactivate, pending.targetUuid, pending.type);
+                    deactivate.executeUpdate();
+                }
+                pending.future.complete(null);
+            } catch (SQLException e) {
+                UUID target = pending.kind == Kind.INSERT ? pending.punishment.getTargetUuid() : pending.targetUuid;
+                logger.log(Level.SEVERE, "写入处罚操作失败: " + pending.kind + " " + target, e);
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+    
+    private void write(List<PendingWrite> writes) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            // 语句在连接上复用，不关闭
+            PreparedStatement insert = punishments.insertStatement(connection);
+            PreparedStatement deactivate = punishments.deactivateStatement(connection);
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Kind currentKind = null;
+                for (PendingWrite pending : writes) {
+                    // 操作类型切换时先执行上一批，保持提交顺序
+                    if (currentKind != null && currentKind != pending.kind) {
+                        (currentKind == Kind.INSERT ? insert : deactivate).executeBatch();
+                    }
+                    currentKind = pending.kind;
+                    
+                    if (pending.kind == Kind.INSERT) {
+                        PunishmentDao.bindInsert(insert, pending.punishment);
+                        insert.addBatch();
+                    } else {
+                        PunishmentDao.bindDeactivate(deactivate, pending.targetUuid, pending.type);
+                        deactivate.addBatch();
+                    }
+                }
+                if (currentKind != null) {
+                    (currentKind == Kind.INSERT ? insert : deactivate).executeBatch();
+                }
+                
+                connection.commit();
+            } catch (SQLException e) {
+                // 失败时丢弃未执行的批次，避免残留到下一次使用
+                insert.clearBatch();
+                deactivate.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+    
+    /**
+     * 停止定时器并写入剩余的所有操作
+     */
+    public void close() {
+        if (timer != null) {
+            timer.shutdown();
+            try {
+                timer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+    }
+    
+    public int getPendingCount() {
+        return size.get();
+    }
+    
+    /**
+     * 队列中尚未写入数据库的处罚状态
+     */
+    public static final class PendingState {
+        static final PendingState INACTIVE = new PendingState(null);
+        
+        private final Punishment punishment;
+        
+        private PendingState(Punishment punishment) {
+            this.punishment = punishment;
+        }
+        
+        public boolean isActive() {
+            return punishment != null;
+        }
+        
+        /**
+         * 使处罚生效的记录，失效时为null
+         */
+        public Punishment getPunishment() {
+            return punishment;
+        }
+    }
+    
+    private enum Kind {
+        INSERT,
+        DEACTIVATE
+    }
+    
+    private static class PendingWrite {
+        private final Kind kind;
+        private final Punishment punishment;
+        private final UUID targetUuid;
+        private final Punishment.Type type;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        PendingWrite(Kind kind, Punishment punishment, UUID targetUuid, Punishment.Type type) {
+            this.kind = kind;
+            this.punishment = punishment;
+            this.targetUuid = targetUuid;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package cn.popcraft.volunteerpunish.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * 基于 schema_version 表的数据库结构迁移
+ * 启动时按版本号顺序执行尚未应用的迁移
+ */
+public class SchemaMigrator {
+    private static final String LOCK_NAME = "volunteerpunish_schema";
+    
+    private final Logger logger;
+    private final SqlDialect dialect;
+    private final List<Migration> migrations = new ArrayList<>();
+    
+    public SchemaMigrator(Logger logger, SqlDialect dialect) {
+        this.logger = logger;
+        this.dialect = dialect;
+        registerMigrations();
+    }
+    
+    private void registerMigrations() {
+        // 1: 初始表结构（与旧版本 createTables 相同，已存在的表不受影响）
+        String createVolunteersTable = "CREATE TABLE IF NOT EXISTS volunteers (" +
+                "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
+                "uuid VARCHAR(36) NOT NULL UNIQUE, " +
+                "group_name VARCHAR(32) NOT NULL, " +
+                "volunteer_id VARCHAR(8) NOT NULL, " +
+                "daily_ban_used INTEGER NOT NULL DEFAULT 0, " +
+                "daily_mute_used INTEGER NOT NULL DEFAULT 0, " +
+                "last_reset DATETIME DEFAULT CURRENT_TIMESTAMP" +
+                ")";
+        String createPunishmentsTable = "CREATE TABLE IF NOT EXISTS punishments (" +
+                "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
+                "target_uuid VARCHAR(36) NOT NULL, " +
+                "volunteer_id VARCHAR(8) NOT NULL, " +
+                "type VARCHAR(10) NOT NULL, " +
+                "duration INTEGER NOT NULL, " +
+                "reason TEXT, " +
+                "issued_at DATETIME NOT NULL, " +
+                "expires_at DATETIME, " +
+                "is_active BOOLEAN NOT NULL DEFAULT TRUE" +
+                ")";
+        // SQLite 使用不同的自增语法（SQLite 实际上是 AUTOINCREMENT 但不需要声明）
+        register(Migration.of(1, "create volunteers and punishments tables",
+            new String[] {
+                createVolunteersTable.replace("AUTO_INCREMENT", ""),
+                createPunishmentsTable.replace("AUTO_INCREMENT", "")
+            },
+            new String[] {
+                createVolunteersTable,
+                createPunishmentsTable
+            }));
+        
+        // 2: 为处罚状态检查、历史查询和志愿者ID查询添加索引
+        register(new IndexMigration(2, "add punishment and volunteer lookup indexes")
+            .index("idx_punishments_active", "punishments", "target_uuid, type, is_active, expires_at")
+            .index("idx_punishments_history", "punishments", "target_uuid, issued_at")
+            .index("idx_volunteers_volunteer_id", "volunteers", "volunteer_id"));
+        
+        // 3: 为到期任务的批量停用添加索引
+        register(new IndexMigration(3, "add punishment expiry index")
+            .index("idx_punishments_expiry", "punishments", "is_active, expires_at"));
+        
+        // 4: 配额改为按 last_reset 惰性重置，SQLite 中旧版本写入的文本时间统一转换为毫秒时间戳
+        register(Migration.of(4, "normalize volunteer last_reset timestamps",
+            new String[] {
+                "UPDATE volunteers SET last_reset = CAST(strftime('%s', last_reset) AS INTEGER) * 1000 " +
+                        "WHERE typeof(last_reset) = 'text'"
+            },
+            new String[0]));
+        
+        // 5: 紧凑行格式，UUID 存为 16 字节，时间存为毫秒时间戳，处罚类型存为数值编号
+        register(new CompactSchemaMigration(5, logger));
+    }
+    
+    private void register(Migration migration) {
+        migrations.add(migration);
+    }
+    
+    /**
+     * 执行所有尚未应用的迁移
+     */
+    public void migrate(DataSource dataSource) throws SQLException {
+        migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        
+        try (Connection connection = dataSource.getConnection()) {
+            boolean mysql = dialect == SqlDialect.MYSQL;
+            // MySQL 下多个服务器可能同时启动，使用命名锁避免重复迁移
+            if (mysql) {
+                acquireLock(connection);
+            }
+            
+            try {
+                createVersionTable(connection);
+                int currentVersion = getCurrentVersion(connection);
+                int latestVersion = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+                
+                if (currentVersion > latestVersion) {
+                    logger.warning("数据库结构版本 (" + currentVersion + ") 高于插件支持的版本 (" + latestVersion + ")，请检查插件版本");
+                    return;
+                }
+                
+                for (Migration migration : migrations) {
+                    if (migration.getVersion() <= currentVersion) {
+                        continue;
+                    }
+                    logger.info("正在执行数据库迁移 v" + migration.getVersion() + ": " + migration.getDescription());
+                    apply(connection, migration);
+                }
+            } finally {
+                if (mysql) {
+                    releaseLock(connection);
+                }
+            }
+        }
+    }
+    
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            migration.migrate(connection, dialect);
+            
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                statement.setInt(1, migration.getVersion());
+                statement.setString(2, migration.getDescription());
+                statement.setLong(3, System.currentTimeMillis());
+                statement.executeUpdate();
+            }
+            
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("数据库迁移 v" + migration.getVersion() + " 执行失败", e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+    
+    private void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER NOT NULL PRIMARY KEY, " +
+                    "description VARCHAR(128) NOT NULL, " +
+                    "applied_at BIGINT NOT NULL" +
+                    ")");
+        }
+    }
+    
+    private int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    private void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 60)")) {
+            statement.setString(1, LOCK_NAME);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("无法获取数据库迁移锁，请检查是否有其他服务器正在执行迁移");
+                }
+            }
+        }
+    }
+    
+    private void releaseLock(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warning("释放数据库迁移锁失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取所有已注册的迁移（只读）
+     */
+    public List<Migration> getMigrations() {
+        return Collections.unmodifiableList(migrations);
+    }
+}
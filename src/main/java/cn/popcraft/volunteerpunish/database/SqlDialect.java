@@ -0,0 +1,91 @@
+package cn.popcraft.volunteerpunish.database;
+
+/**
+ * 数据库方言
+ * 启动时根据 database.type 解析一次，与数据库相关的 SQL 差异都集中在这里
+ */
+public enum SqlDialect {
+    SQLITE {
+        @Override
+        public String upsertVolunteerSql() {
+            return "INSERT OR REPLACE INTO volunteers (" + VolunteerDao.INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
+        }
+        
+        @Override
+        public String autoIncrement() {
+            // SQLite 的 INTEGER PRIMARY KEY 本身就会自增
+            return "";
+        }
+        
+        @Override
+        public String uuidType() {
+            return "BLOB";
+        }
+        
+        @Override
+        public boolean isEmbedded() {
+            return true;
+        }
+    },
+    MYSQL {
+        @Override
+        public String upsertVolunteerSql() {
+            return "INSERT INTO volunteers (" + VolunteerDao.INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "group_name = VALUES(group_name), " +
+                    "volunteer_id = VALUES(volunteer_id), " +
+                    "daily_ban_used = VALUES(daily_ban_used), " +
+                    "daily_mute_used = VALUES(daily_mute_used), " +
+                    "last_reset = VALUES(last_reset)";
+        }
+        
+        @Override
+        public String autoIncrement() {
+            return " AUTO_INCREMENT";
+        }
+        
+        @Override
+        public String uuidType() {
+            return "BINARY(16)";
+        }
+        
+        @Override
+        public boolean isEmbedded() {
+            return false;
+        }
+    };
+    
+    /**
+     * 插入或更新志愿者的语句，参数顺序与 VolunteerDao.INSERT_COLUMNS 一致
+     */
+    public abstract String upsertVolunteerSql();
+    
+    /**
+     * 自增主键的列修饰（包含前导空格）
+     */
+    public abstract String autoIncrement();
+    
+    /**
+     * 16 字节 UUID 列的类型
+     */
+    public abstract String uuidType();
+    
+    /**
+     * 数据库文件是否只属于本服务器（不会被其他服务器同时写入）
+     */
+    public abstract boolean isEmbedded();
+    
+    /**
+     * 根据配置中的数据库类型获取方言
+     * @throws IllegalArgumentException 不支持的数据库类型
+     */
+    public static SqlDialect of(String databaseType) {
+        if ("sqlite".equalsIgnoreCase(databaseType)) {
+            return SQLITE;
+        }
+        if ("mysql".equalsIgnoreCase(databaseType)) {
+            return MYSQL;
+        }
+        throw new IllegalArgumentException("不支持的数据库类型: " + databaseType);
+    }
+}
@@ -0,0 +1,65 @@
+package cn.popcraft.volunteerpunish.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 按物理连接缓存的预编译语句
+ * 连接池归还连接时会关闭通过代理连接创建的语句，因此 SQLite 下语句在底层物理连接上创建，随物理连接一起关闭
+ * 同一个物理连接同一时间只会被一个线程借出，借出期间使用其缓存的语句是安全的
+ * MySQL 下语句仍通过代理连接创建，由驱动的 cachePrepStmts 复用服务端语句，
+ * 这样网络断开等错误能被连接池识别并淘汰该连接，事务状态也由连接池跟踪
+ * 调用方不能关闭返回的语句，只需关闭 ResultSet
+ */
+final class StatementCache {
+    private final Map<Connection, Map<String, PreparedStatement>> statements = new IdentityHashMap<>();
+    // 只有 SQLite 在物理连接上缓存语句
+    private final boolean physical;
+    
+    StatementCache(SqlDialect dialect) {
+        this.physical = dialect == SqlDialect.SQLITE;
+    }
+    
+    /**
+     * 获取该连接上已编译的语句，没有时编译并缓存
+     * @param connection 连接池借出的连接
+     */
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        if (!this.physical) {
+            // 连接归还时由连接池关闭
+            return connection.prepareStatement(sql);
+        }
+        
+        Connection physical = connection.unwrap(Connection.class);
+        synchronized (statements) {
+            Map<String, PreparedStatement> cached = statements.get(physical);
+            if (cached == null) {
+                // 出现新的物理连接时，说明可能有旧连接已被连接池关闭，顺便清理
+                purgeClosed();
+                cached = new HashMap<>();
+                statements.put(physical, cached);
+            }
+            
+            PreparedStatement statement = cached.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = physical.prepareStatement(sql);
+                cached.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+    
+    private void purgeClosed() throws SQLException {
+        Iterator<Connection> iterator = statements.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isClosed()) {
+                iterator.remove();
+            }
+        }
+    }
+}
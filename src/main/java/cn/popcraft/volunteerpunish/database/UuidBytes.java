@@ -0,0 +1,40 @@
+package cn.popcraft.volunteerpunish.database;
+
+import java.util.UUID;
+
+/**
+ * UUID 与 BINARY(16) 列之间的转换（大端序，与 UUID 的字符串形式顺序一致）
+ */
+final class UuidBytes {
+    private UuidBytes() {
+    }
+    
+    static byte[] toBytes(UUID uuid) {
+        byte[] bytes = new byte[16];
+        writeLong(bytes, 0, uuid.getMostSignificantBits());
+        writeLong(bytes, 8, uuid.getLeastSignificantBits());
+        return bytes;
+    }
+    
+    static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) {
+            throw new IllegalArgumentException("UUID 列的长度必须为 16 字节");
+        }
+        return new UUID(readLong(bytes, 0), readLong(bytes, 8));
+    }
+    
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+    
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,185 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import cn.popcraft.volunteerpunish.model.Volunteer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * volunteers 表的读写
+ * 查询使用固定的列顺序，结果按位置映射，语句通过 StatementCache 在连接上复用
+ */
+final class VolunteerDao {
+    // 查询列的顺序与 map 中的下标一致
+    static final String COLUMNS = "id, uuid, group_name, volunteer_id, daily_ban_used, daily_mute_used, last_reset";
+    // 插入列的顺序与 bindVolunteer 中的下标一致
+    static final String INSERT_COLUMNS = "uuid, group_name, volunteer_id, daily_ban_used, daily_mute_used, last_reset";
+    
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM volunteers";
+    private static final String BY_UUID_SQL = SELECT_SQL + " WHERE uuid = ?";
+    private static final String BY_VOLUNTEER_ID_SQL = SELECT_SQL + " WHERE volunteer_id = ?";
+    private static final String DELETE_SQL = "DELETE FROM volunteers WHERE uuid = ?";
+    // 只修改单列，不会覆盖并发消耗配额时写入的计数
+    private static final String UPDATE_VOLUNTEER_ID_SQL = "UPDATE volunteers SET volunteer_id = ? WHERE uuid = ?";
+    private static final String UPDATE_GROUP_SQL = "UPDATE volunteers SET group_name = ? WHERE uuid = ?";
+    
+    private final StatementCache statements;
+    private final String upsertSql;
+    // 下标为 类型序号 * 2 + (是否重置过期计数 ? 1 : 0)
+    private final String[] consumeQuotaSql = new String[Punishment.Type.values().length * 2];
+    
+    VolunteerDao(SqlDialect dialect, StatementCache statements) {
+        this.statements = statements;
+        this.upsertSql = dialect.upsertVolunteerSql();
+        for (Punishment.Type type : Punishment.Type.values()) {
+            consumeQuotaSql[type.ordinal() * 2] = consumeQuotaSql(type, false);
+            consumeQuotaSql[type.ordinal() * 2 + 1] = consumeQuotaSql(type, true);
+        }
+    }
+    
+    Volunteer findByUuid(Connection connection, UUID uuid) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, BY_UUID_SQL);
+        statement.setBytes(1, UuidBytes.toBytes(uuid));
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? map(rs) : null;
+        }
+    }
+    
+    Volunteer findByVolunteerId(Connection connection, String volunteerId) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, BY_VOLUNTEER_ID_SQL);
+        statement.setString(1, volunteerId);
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? map(rs) : null;
+        }
+    }
+    
+    List<Volunteer> findAll(Connection connection) throws SQLException {
+        List<Volunteer> volunteers = new ArrayList<>();
+        try (ResultSet rs = statements.prepare(connection, SELECT_SQL).executeQuery()) {
+            while (rs.next()) {
+                volunteers.add(map(rs));
+            }
+        }
+        return volunteers;
+    }
+    
+    void save(Connection connection, Volunteer volunteer) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, upsertSql);
+        bindVolunteer(statement, volunteer);
+        statement.executeUpdate();
+    }
+    
+    /**
+     * @return 志愿者存在且修改成功时返回true
+     */
+    boolean updateVolunteerId(Connection connection, UUID uuid, String volunteerId) throws SQLException {
+        return updateColumn(connection, UPDATE_VOLUNTEER_ID_SQL, uuid, volunteerId);
+    }
+    
+    /**
+     * @return 志愿者存在且修改成功时返回true
+     */
+    boolean updateGroup(Connection connection, UUID uuid, String groupName) throws SQLException {
+        return updateColumn(connection, UPDATE_GROUP_SQL, uuid, groupName);
+    }
+    
+    private boolean updateColumn(Connection connection, String sql, UUID uuid, String value) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, sql);
+        statement.setString(1, value);
+        statement.setBytes(2, UuidBytes.toBytes(uuid));
+        return statement.executeUpdate() > 0;
+    }
+    
+    void delete(Connection connection, UUID uuid) throws SQLException {
+        PreparedStatement statement = statements.prepare(connection, DELETE_SQL);
+        statement.setBytes(1, UuidBytes.toBytes(uuid));
+        statement.executeUpdate();
+    }
+    
+    /**
+     * 原子性地消耗一次配额
+     * 按 UUID（唯一）定位志愿者，volunteer_id 没有唯一约束，重复时不能让一次处罚扣多人的配额
+     * @param windowStart 当前配额窗口的起点，为null时不重置
+     * @return 配额未用完且计数成功时返回true
+     */
+    boolean tryConsumeQuota(Connection connection, UUID uuid, Punishment.Type type, int limit,
+                            Timestamp windowStart) throws SQLException {
+        boolean resetExpired = windowStart != null;
+        PreparedStatement statement = statements.prepare(connection,
+            consumeQuotaSql[type.ordinal() * 2 + (resetExpired ? 1 : 0)]);
+        
+        int index = 1;
+        if (resetExpired) {
+            // 三处过期判断，以及重置后的 last_reset（记为窗口起点）
+            for (int i = 0; i < 4; i++) {
+                statement.setLong(index++, windowStart.getTime());
+            }
+        }
+        statement.setBytes(index++, UuidBytes.toBytes(uuid));
+        if (resetExpired) {
+            statement.setLong(index++, windowStart.getTime());
+        }
+        statement.setInt(index, limit);
+        return statement.executeUpdate() > 0;
+    }
+    
+    /**
+     * 绑定插入或更新志愿者的参数
+     */
+    static void bindVolunteer(PreparedStatement statement, Volunteer volunteer) throws SQLException {
+        statement.setBytes(1, UuidBytes.toBytes(volunteer.getUuid()));
+        statement.setString(2, volunteer.getGroupName());
+        statement.setString(3, volunteer.getVolunteerId());
+        statement.setInt(4, volunteer.getDailyBanUsed());
+        statement.setInt(5, volunteer.getDailyMuteUsed());
+        if (volunteer.getLastReset() != null) {
+            statement.setLong(6, volunteer.getLastReset().getTime());
+        } else {
+            statement.setNull(6, Types.BIGINT);
+        }
+    }
+    
+    /**
+     * 生成消耗配额的 UPDATE 语句
+     * resetExpired 为 true 时参数依次为: 窗口起点 x3, 新的 last_reset, 志愿者UUID, 窗口起点, 配额上限
+     * 否则为: 志愿者UUID, 配额上限
+     */
+    static String consumeQuotaSql(Punishment.Type type, boolean resetExpired) {
+        String column = type == Punishment.Type.BAN ? "daily_ban_used" : "daily_mute_used";
+        if (!resetExpired) {
+            return "UPDATE volunteers SET " + column + " = " + column + " + 1 WHERE uuid = ? AND " + column + " < ?";
+        }
+        String other = type == Punishment.Type.BAN ? "daily_mute_used" : "daily_ban_used";
+        String expired = "(last_reset IS NULL OR last_reset < ?)";
+        // MySQL 按从左到右的顺序赋值，last_reset 必须最后更新，前面的条件才能读到旧值
+        return "UPDATE volunteers SET " +
+                column + " = CASE WHEN " + expired + " THEN 1 ELSE " + column + " + 1 END, " +
+                other + " = CASE WHEN " + expired + " THEN 0 ELSE " + other + " END, " +
+                "last_reset = CASE WHEN " + expired + " THEN ? ELSE last_reset END " +
+                "WHERE uuid = ? AND (CASE WHEN " + expired + " THEN 0 ELSE " + column + " END) < ?";
+    }
+    
+    /**
+     * 按 COLUMNS 的顺序映射一行
+     */
+    static Volunteer map(ResultSet rs) throws SQLException {
+        Volunteer volunteer = new Volunteer();
+        volunteer.setId(rs.getInt(1));
+        volunteer.setUuid(UuidBytes.fromBytes(rs.getBytes(2)));
+        volunteer.setGroupName(rs.getString(3));
+        volunteer.setVolunteerId(rs.getString(4));
+        volunteer.setDailyBanUsed(rs.getInt(5));
+        volunteer.setDailyMuteUsed(rs.getInt(6));
+        long lastReset = rs.getLong(7);
+        volunteer.setLastReset(rs.wasNull() ? null : new Timestamp(lastReset));
+        return volunteer;
+    }
+}
@@ -2,18 +2,37 @@ package cn.popcraft.volunteerpunish.hook;
 
 import cn.popcraft.volunteerpunish.VolunteerPunish;
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.messaging.MessagingService;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.node.types.PermissionNode;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.RegisteredServiceProvider;
 
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 public class LuckPermsHook {
+    private static final String[] VOLUNTEER_PERMISSIONS = {
+        "volunteerpunish.volunteer.ban",
+        "volunteerpunish.volunteer.mute"
+    };
+    
     private final VolunteerPunish plugin;
     private LuckPerms luckPerms;
     private boolean enabled = false;
+    // 权限检查结果缓存：玩家UUID -> (权限节点 -> 结果)，LuckPerms 重新计算玩家数据时失效
+    private final Map<UUID, Map<String, CachedPermission>> permissionCache = new ConcurrentHashMap<>();
+    private EventSubscription<UserDataRecalculateEvent> recalculateSubscription;
     
     public LuckPermsHook(VolunteerPunish plugin) {
         this.plugin = plugin;
@@ -30,6 +49,9 @@ public class LuckPermsHook {
             if (provider != null) {
                 luckPerms = provider.getProvider();
                 enabled = true;
+                // 玩家的权限数据变化时清除缓存的检查结果
+                recalculateSubscription = luckPerms.getEventBus().subscribe(plugin, UserDataRecalculateEvent.class,
+                        event -> invalidate(event.getUser().getUniqueId()));
                 plugin.getLogger().info("成功连接到LuckPerms API");
             }
         } catch (ClassNotFoundException e) {
@@ -55,34 +77,15 @@ public class LuckPermsHook {
             return CompletableFuture.completedFuture(false);
         }
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                User user = luckPerms.getUserManager().loadUser(player.getUniqueId()).join();
-                if (user == null) {
-                    return false;
-                }
-                
-                // 添加志愿者权限
-                user.data().add(PermissionNode.builder("volunteerpunish.volunteer.ban").build());
-                user.data().add(PermissionNode.builder("volunteerpunish.volunteer.mute").build());
-                
-                // 保存用户数据
-                luckPerms.getUserManager().saveUser(user).join();
-                
-                // 更新用户权限（推送更改）
-                luckPerms.getMessagingService().ifPresent(service -> {
-                    service.pushUserUpdate(user);
-                });
-                
-                plugin.getServer().getScheduler().runTask(plugin, () -> {
-                    player.sendMessage("§a你已成为志愿者！相关权限已授予。");
-                });
-                
-                return true;
-            } catch (Exception e) {
-                plugin.getLogger().log(java.util.logging.Level.SEVERE, "为玩家添加志愿者权限时出错: " + e.getMessage(), e);
-                return false;
-            }
+        return grantVolunteerPermissions(player.getUniqueId()).thenApply(v -> {
+            pushUserUpdate(player.getUniqueId());
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                player.sendMessage("§a你已成为志愿者！相关权限已授予。");
+            });
+            return true;
+        }).exceptionally(throwable -> {
+            plugin.getLogger().log(Level.SEVERE, "为玩家添加志愿者权限时出错: " + throwable.getMessage(), throwable);
+            return false;
         });
     }
     
@@ -100,64 +103,242 @@ public class LuckPermsHook {
             return CompletableFuture.completedFuture(false);
         }
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                User user = luckPerms.getUserManager().loadUser(player.getUniqueId()).join();
-                if (user == null) {
-                    return false;
-                }
-                
-                // 移除志愿者权限
-                user.data().remove(PermissionNode.builder("volunteerpunish.volunteer.ban").build());
-                user.data().remove(PermissionNode.builder("volunteerpunish.volunteer.mute").build());
-                
-                // 保存用户数据
-                luckPerms.getUserManager().saveUser(user).join();
-                
-                // 更新用户权限（推送更改）
-                luckPerms.getMessagingService().ifPresent(service -> {
-                    service.pushUserUpdate(user);
-                });
-                
-                plugin.getServer().getScheduler().runTask(plugin, () -> {
-                    player.sendMessage("§a你已不再是志愿者！相关权限已移除。");
-                });
-                
-                return true;
-            } catch (Exception e) {
-                plugin.getLogger().log(java.util.logging.Level.SEVERE, "移除玩家志愿者权限时出错: " + e.getMessage(), e);
-                return false;
+        return revokeVolunteerPermissions(player.getUniqueId()).thenApply(v -> {
+            pushUserUpdate(player.getUniqueId());
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                player.sendMessage("§a你已不再是志愿者！相关权限已移除。");
+            });
+            return true;
+        }).exceptionally(throwable -> {
+            plugin.getLogger().log(Level.SEVERE, "移除玩家志愿者权限时出错: " + throwable.getMessage(), throwable);
+            return false;
+        });
+    }
+    
+    /**
+     * 为玩家（可以离线）添加志愿者权限节点
+     * 使用 modifyUser 在 LuckPerms 内部完成加载、修改和保存，调用线程不会阻塞
+     */
+    public CompletableFuture<Void> grantVolunteerPermissions(UUID uuid) {
+        return luckPerms.getUserManager().modifyUser(uuid, user -> {
+            for (String permission : VOLUNTEER_PERMISSIONS) {
+                user.data().add(PermissionNode.builder(permission).build());
             }
         });
     }
     
     /**
-     * 检查玩家是否拥有指定权限
-     * @param player 玩家对象
+     * 移除玩家（可以离线）的志愿者权限节点
+     */
+    public CompletableFuture<Void> revokeVolunteerPermissions(UUID uuid) {
+        return luckPerms.getUserManager().modifyUser(uuid, user -> {
+            for (String permission : VOLUNTEER_PERMISSIONS) {
+                user.data().remove(PermissionNode.builder(permission).build());
+            }
+        });
+    }
+    
+    /**
+     * 批量添加志愿者权限，最多同时进行 luckperms.bulk-parallelism 个操作
+     * @param progress 每完成一个玩家回调一次（已完成数, 总数），在 LuckPerms 的线程中调用
+     */
+    public CompletableFuture<BulkResult> grantVolunteerPermissions(List<UUID> uuids, BiConsumer<Integer, Integer> progress) {
+        return runBulk(uuids, this::grantVolunteerPermissions, progress);
+    }
+    
+    /**
+     * 批量移除志愿者权限，最多同时进行 luckperms.bulk-parallelism 个操作
+     * @param progress 每完成一个玩家回调一次（已完成数, 总数），在 LuckPerms 的线程中调用
+     */
+    public CompletableFuture<BulkResult> revokeVolunteerPermissions(List<UUID> uuids, BiConsumer<Integer, Integer> progress) {
+        return runBulk(uuids, this::revokeVolunteerPermissions, progress);
+    }
+    
+    private CompletableFuture<BulkResult> runBulk(List<UUID> uuids, Function<UUID, CompletableFuture<Void>> operation,
+                                                  BiConsumer<Integer, Integer> progress) {
+        if (uuids.isEmpty()) {
+            return CompletableFuture.completedFuture(new BulkResult(0, 0));
+        }
+        
+        BulkRun run = new BulkRun(uuids, operation, progress);
+        int parallelism = Math.min(plugin.getConfigManager().getLuckPermsBulkParallelism(), uuids.size());
+        for (int i = 0; i < parallelism; i++) {
+            run.startNext();
+        }
+        // 批量操作完成后统一推送一次更新，而不是每个玩家推送一次
+        return run.result.thenApply(result -> {
+            luckPerms.getMessagingService().ifPresent(MessagingService::pushUpdate);
+            return result;
+        });
+    }
+    
+    private void pushUserUpdate(UUID uuid) {
+        User user = luckPerms.getUserManager().getUser(uuid);
+        if (user != null) {
+            luckPerms.getMessagingService().ifPresent(service -> service.pushUserUpdate(user));
+        }
+    }
+    
+    /**
+     * 异步检查玩家（包括离线玩家）是否拥有指定权限
+     * 已加载的用户立即完成，未加载的用户异步从 LuckPerms 存储加载，调用线程不会阻塞
+     * @param uuid 玩家UUID
      * @param permission 权限节点
-     * @return 是否拥有权限
      */
-    public boolean hasPermission(Player player, String permission) {
+    public CompletableFuture<Boolean> hasPermissionAsync(UUID uuid, String permission) {
         if (!enabled || luckPerms == null) {
-            // 如果没有LuckPerms，回落到Bukkit的权限检查
-            return player.hasPermission(permission);
+            Player player = Bukkit.getPlayer(uuid);
+            return CompletableFuture.completedFuture(player != null && player.hasPermission(permission));
         }
         
-        try {
-            User user = luckPerms.getUserManager().loadUser(player.getUniqueId()).join();
-            if (user == null) {
+        Boolean cached = getCached(uuid, permission);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        User loaded = luckPerms.getUserManager().getUser(uuid);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(cache(uuid, permission, check(loaded, permission)));
+        }
+        
+        return luckPerms.getUserManager().loadUser(uuid)
+            .thenApply(user -> user != null && cache(uuid, permission, check(user, permission)))
+            .exceptionally(throwable -> {
+                plugin.getLogger().log(Level.SEVERE, "检查玩家权限时出错: " + throwable.getMessage(), throwable);
                 return false;
-            }
-            
-            return user.getCachedData().getPermissionData().checkPermission(permission).asBoolean();
-        } catch (Exception e) {
-            plugin.getLogger().log(java.util.logging.Level.SEVERE, "检查玩家权限时出错: " + e.getMessage(), e);
-            // 出错时回落到Bukkit的权限检查
-            return player.hasPermission(permission);
+            });
+    }
+    
+    private static boolean check(User user, String permission) {
+        return user.getCachedData().getPermissionData().checkPermission(permission).asBoolean();
+    }
+    
+    private Boolean getCached(UUID uuid, String permission) {
+        Map<String, CachedPermission> permissions = permissionCache.get(uuid);
+        if (permissions == null) {
+            return null;
+        }
+        CachedPermission cached = permissions.get(permission);
+        if (cached == null || cached.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return cached.value;
+    }
+    
+    private boolean cache(UUID uuid, String permission, boolean value) {
+        long ttl = plugin.getConfigManager().getPermissionCacheTtl() * 1000L;
+        if (ttl > 0) {
+            permissionCache.computeIfAbsent(uuid, key -> new ConcurrentHashMap<>())
+                .put(permission, new CachedPermission(value, System.currentTimeMillis() + ttl));
+        }
+        return value;
+    }
+    
+    /**
+     * 清除玩家缓存的权限检查结果
+     */
+    public void invalidate(UUID uuid) {
+        permissionCache.remove(uuid);
+    }
+    
+    /**
+     * 取消事件订阅并清空缓存（插件禁用时调用）
+     */
+    public void shutdown() {
+        if (recalculateSubscription != null) {
+            recalculateSubscription.close();
+            recalculateSubscription = null;
         }
+        permissionCache.clear();
     }
     
     public boolean isEnabled() {
         return enabled;
     }
+    
+    /**
+     * 批量操作的结果
+     */
+    public static class BulkResult {
+        private final int total;
+        private final int failed;
+        
+        BulkResult(int total, int failed) {
+            this.total = total;
+            this.failed = failed;
+        }
+        
+        public int getTotal() {
+            return total;
+        }
+        
+        public int getSucceeded() {
+            return total - failed;
+        }
+        
+        public int getFailed() {
+            return failed;
+        }
+    }
+    
+    /**
+     * 一次批量操作的执行状态
+     * 每个操作完成后启动下一个，同时进行的操作数不超过初始启动的数量，不占用等待线程
+     */
+    private class BulkRun {
+        private final List<UUID> uuids;
+        private final Function<UUID, CompletableFuture<Void>> operation;
+        private final BiConsumer<Integer, Integer> progress;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final CompletableFuture<BulkResult> result = new CompletableFuture<>();
+        
+        BulkRun(List<UUID> uuids, Function<UUID, CompletableFuture<Void>> operation, BiConsumer<Integer, Integer> progress) {
+            this.uuids = uuids;
+            this.operation = operation;
+            this.progress = progress;
+        }
+        
+        void startNext() {
+            int index = next.getAndIncrement();
+            if (index >= uuids.size()) {
+                return;
+            }
+            
+            UUID uuid = uuids.get(index);
+            CompletableFuture<Void> future;
+            try {
+                future = operation.apply(uuid);
+            } catch (Exception e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((v, throwable) -> {
+                if (throwable != null) {
+                    failed.incrementAndGet();
+                    plugin.getLogger().warning("修改玩家 " + uuid + " 的志愿者权限失败: " + throwable.getMessage());
+                }
+                int done = completed.incrementAndGet();
+                if (progress != null) {
+                    progress.accept(done, uuids.size());
+                }
+                if (done == uuids.size()) {
+                    result.complete(new BulkResult(uuids.size(), failed.get()));
+                } else {
+                    startNext();
+                }
+            });
+        }
+    }
+    
+    private static class CachedPermission {
+        private final boolean value;
+        private final long expiresAt;
+        
+        CachedPermission(boolean value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
\ No newline at end of file
@@ -15,8 +15,8 @@ public class ChatListener implements Listener {
     
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerChat(AsyncPlayerChatEvent event) {
-        // 检查玩家是否被禁言
-        if (plugin.isMuted(event.getPlayer().getUniqueId())) {
+        // 检查玩家是否被禁言（仅查询内存缓存，不访问数据库）
+        if (plugin.getMuteCache().isMuted(event.getPlayer().getUniqueId())) {
             // 取消聊天事件
             event.setCancelled(true);
             
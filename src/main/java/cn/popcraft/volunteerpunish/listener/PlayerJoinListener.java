@@ -5,22 +5,15 @@ import cn.popcraft.volunteerpunish.config.ConfigManager;
 import cn.popcraft.volunteerpunish.model.Punishment;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
-import org.bukkit.BanList;
-import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
-
 public class PlayerJoinListener implements Listener {
+    private static final String MISSING_REASON = "未指定";
+    
     private final VolunteerPunish plugin;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     
     public PlayerJoinListener(VolunteerPunish plugin) {
         this.plugin = plugin;
@@ -30,73 +23,23 @@ public class PlayerJoinListener implements Listener {
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
-        BanList banList = plugin.getServer().getBanList(BanList.Type.NAME);
-        if (banList.isBanned(player.getName())) {
-            org.bukkit.BanEntry banEntry = banList.getBanEntry(player.getName());
-            String banReason = banEntry != null && banEntry.getReason() != null ? banEntry.getReason() : "违反服务器规定";
-            String kickMessage = "§c你已被封禁\n§7原因: " + banReason;
-            
-            if (banEntry != null && banEntry.getExpiration() != null) {
-                kickMessage += "\n§7解封时间: " + dateFormat.format(banEntry.getExpiration());
-            } else {
-                kickMessage += "\n§7类型: 永久封禁";
-            }
-            
-            player.kickPlayer(ChatColor.translateAlternateColorCodes('&', kickMessage));
-            event.setJoinMessage(null);
-            return;
-        }
-
-        CompletableFuture<List<Punishment>> future = plugin.getDatabase().getPunishmentsByTargetUuid(player.getUniqueId());
+        // 更新玩家名补全索引
+        plugin.getPlayerNameIndex().add(player.getName());
 
-        future.thenAccept(punishments -> {
-            Punishment activeBan = null;
-            for (Punishment punishment : punishments) {
-                if (punishment.getType() == Punishment.Type.BAN && punishment.isActive()) {
-                    if (punishment.getExpiresAt() == null || punishment.getExpiresAt().after(new Date())) {
-                        activeBan = punishment;
-                        break;
-                    }
-                }
-            }
+        // 刷新志愿者缓存，其他服务器上的修改在玩家加入时生效
+        plugin.getVolunteerCache().refresh(player.getUniqueId()).exceptionally(throwable -> {
+            plugin.getLogger().warning("刷新志愿者信息失败，继续使用缓存: " + player.getName() + ", " + throwable.getMessage());
+            return null;
+        });
 
-            if (activeBan != null) {
-                final Punishment finalBan = activeBan;
+        // 封禁检查已在 PlayerLoginListener 中完成，这里只加载禁言状态并发送通知
+        plugin.getMuteCache().load(player.getUniqueId()).thenAccept(activeMute -> {
+            if (activeMute != null && plugin.getConfigManager().isEnableLoginNotification()) {
                 plugin.getServer().getScheduler().runTask(plugin, () -> {
-                    String banReason = finalBan.getReason() != null ? finalBan.getReason() : "违反服务器规定";
-                    String duration = "永久";
-                    if (finalBan.getDuration() > 0) {
-                        duration = formatDuration(finalBan.getDuration());
+                    if (player.isOnline()) {
+                        showPunishmentNotification(player, activeMute);
                     }
-
-                    String kickMessage = "§c你已被封禁\n" +
-                            "§7原因: " + banReason + "\n" +
-                            "§7时长: " + duration + "\n" +
-                            "§7封禁者: " + finalBan.getVolunteerId();
-
-                    player.kickPlayer(ChatColor.translateAlternateColorCodes('&', kickMessage));
-                    event.setJoinMessage(null);
                 });
-                return;
-            }
-
-            if (plugin.getConfigManager().isEnableLoginNotification()) {
-                Punishment activeMute = null;
-                for (Punishment punishment : punishments) {
-                    if (punishment.getType() == Punishment.Type.MUTE && punishment.isActive()) {
-                        if (punishment.getExpiresAt() == null || punishment.getExpiresAt().after(new Date())) {
-                            activeMute = punishment;
-                            break;
-                        }
-                    }
-                }
-
-                if (activeMute != null) {
-                    final Punishment finalMute = activeMute;
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        showPunishmentNotification(player, finalMute);
-                    });
-                }
             }
         }).exceptionally(throwable -> {
             plugin.getLogger().severe("检查玩家处罚状态时发生错误: " + throwable.getMessage());
@@ -105,68 +48,18 @@ public class PlayerJoinListener implements Listener {
     }
     
     private void showPunishmentNotification(Player player, Punishment punishment) {
-        String message = formatMessage(punishment);
-        String coloredMessage = ChatColor.translateAlternateColorCodes('&', message);
+        ConfigManager config = plugin.getConfigManager();
         
         // 发送聊天消息
-        player.sendMessage(coloredMessage);
+        player.sendMessage(config.getNotificationMessage(punishment.getType()).render(punishment, MISSING_REASON));
         
         // 发送Title
-        ConfigManager.TitleConfig titleConfig = plugin.getConfigManager().getTitleMessages()
-                .getOrDefault(punishment.getType().name().toLowerCase(), 
-                        new ConfigManager.TitleConfig("&c你已被" + (punishment.getType() == Punishment.Type.BAN ? "封禁" : "禁言"), 
-                                "&7原因: " + (punishment.getReason() != null ? punishment.getReason() : "未指定")));
-        
-        String title = ChatColor.translateAlternateColorCodes('&', 
-                titleConfig.getTitle().replace("{reason}", punishment.getReason() != null ? punishment.getReason() : "未指定"));
-        String subtitle = ChatColor.translateAlternateColorCodes('&', 
-                titleConfig.getSubtitle().replace("{reason}", punishment.getReason() != null ? punishment.getReason() : "未指定"));
-        
-        player.sendTitle(title, subtitle, 10, 70, 20);
-        
-        // 发送ActionBar消息
-        String actionbarMessage = plugin.getConfigManager().getActionbarMessages()
-                .getOrDefault(punishment.getType().name().toLowerCase(), 
-                        "&c你当前处于" + (punishment.getType() == Punishment.Type.BAN ? "封禁" : "禁言") + "状态");
-        actionbarMessage = ChatColor.translateAlternateColorCodes('&', 
-                actionbarMessage.replace("{reason}", punishment.getReason() != null ? punishment.getReason() : "未指定"));
+        ConfigManager.TitleConfig titleConfig = config.getTitleMessage(punishment.getType());
+        player.sendTitle(titleConfig.getTitle().render(punishment, MISSING_REASON),
+                titleConfig.getSubtitle().render(punishment, MISSING_REASON), 10, 70, 20);
         
         // 使用BungeeCord API发送ActionBar消息
+        String actionbarMessage = config.getActionbarMessage(punishment.getType()).render(punishment, MISSING_REASON);
         player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new TextComponent(actionbarMessage));
     }
-    
-    private String formatMessage(Punishment punishment) {
-        String template = plugin.getConfigManager().getNotificationMessages()
-                .getOrDefault(punishment.getType().name().toLowerCase(), 
-                        "&c你已被志愿者 #{volunteer_id} {type} {duration}，原因：{reason}");
-        
-        String duration = "永久";
-        if (punishment.getDuration() > 0) {
-            duration = formatDuration(punishment.getDuration());
-        }
-        
-        String unbanTime = "永久";
-        if (punishment.getExpiresAt() != null) {
-            unbanTime = dateFormat.format(punishment.getExpiresAt());
-        }
-        
-        return template
-                .replace("{volunteer_id}", punishment.getVolunteerId())
-                .replace("{type}", punishment.getType() == Punishment.Type.BAN ? "封禁" : "禁言")
-                .replace("{duration}", duration)
-                .replace("{reason}", punishment.getReason() != null ? punishment.getReason() : "未指定")
-                .replace("{unban_time}", unbanTime);
-    }
-    
-    private String formatDuration(long seconds) {
-        if (seconds < 60) {
-            return seconds + "秒";
-        } else if (seconds < 3600) {
-            return (seconds / 60) + "分钟";
-        } else if (seconds < 86400) {
-            return (seconds / 3600) + "小时";
-        } else {
-            return (seconds / 86400) + "天";
-        }
-    }
-}
\ No newline at end of file
+}
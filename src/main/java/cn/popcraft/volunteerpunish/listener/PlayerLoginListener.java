@@ -0,0 +1,58 @@
+package cn.popcraft.volunteerpunish.listener;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.cache.ActivePunishmentIndex;
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+import java.util.UUID;
+
+public class PlayerLoginListener implements Listener {
+    private final VolunteerPunish plugin;
+    
+    public PlayerLoginListener(VolunteerPunish plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * 在玩家实体创建之前检查封禁状态
+     * 该事件在异步线程中触发，可以直接等待数据库查询结果
+     * 生效处罚索引中有封禁时一定拒绝登录，数据库中可能还查不到该记录（写入队列、副本延迟或写入失败）
+     */
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        
+        UUID uuid = event.getUniqueId();
+        ActivePunishmentIndex index = plugin.getActivePunishments();
+        Punishment indexedBan = index.getActive(uuid, Punishment.Type.BAN);
+        // 生效处罚索引完整且其中没有封禁时无需查询数据库
+        if (indexedBan == null && index.isAuthoritative()) {
+            return;
+        }
+        
+        // 优先使用数据库中的记录，消息中才有原因和封禁者
+        Punishment activeBan;
+        try {
+            activeBan = plugin.getDatabase().getActivePunishment(uuid, Punishment.Type.BAN).join();
+        } catch (Exception e) {
+            plugin.getLogger().severe("检查玩家 " + event.getName() + " 的封禁状态时发生错误: " + e.getMessage());
+            activeBan = null;
+        }
+        if (activeBan == null) {
+            activeBan = indexedBan;
+        }
+        
+        if (activeBan == null) {
+            return;
+        }
+        
+        event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED,
+                plugin.getConfigManager().getLoginKickMessage().render(activeBan, "违反服务器规定"));
+    }
+}
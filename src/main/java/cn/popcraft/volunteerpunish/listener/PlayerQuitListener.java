@@ -0,0 +1,24 @@
+package cn.popcraft.volunteerpunish.listener;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerQuitListener implements Listener {
+    private final VolunteerPunish plugin;
+    
+    public PlayerQuitListener(VolunteerPunish plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // 玩家退出后不再需要缓存其禁言状态和权限检查结果
+        plugin.getMuteCache().remove(event.getPlayer().getUniqueId());
+        if (plugin.getLuckPermsHook() != null) {
+            plugin.getLuckPermsHook().invalidate(event.getPlayer().getUniqueId());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package cn.popcraft.volunteerpunish.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存命中统计
+ */
+public class CacheStats {
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public CacheStats(String name) {
+        this.name = name;
+    }
+    
+    public void hit() {
+        hits.increment();
+    }
+    
+    public void miss() {
+        misses.increment();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
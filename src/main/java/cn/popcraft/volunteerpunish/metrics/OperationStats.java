@@ -0,0 +1,45 @@
+package cn.popcraft.volunteerpunish.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个数据库操作的调用次数、错误次数和延迟分布
+ */
+public class OperationStats {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    
+    public OperationStats(String name) {
+        this.name = name;
+    }
+    
+    public void record(long nanos) {
+        latency.record(nanos);
+    }
+    
+    public void recordError() {
+        errors.increment();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+    
+    public long getCount() {
+        return latency.getCount();
+    }
+    
+    public long getErrors() {
+        return errors.sum();
+    }
+    
+    public double getErrorRate() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getErrors() / count;
+    }
+}
@@ -0,0 +1,42 @@
+package cn.popcraft.volunteerpunish.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 插件运行指标的注册表
+ * 数据库操作和缓存按名称懒加载注册，统计从插件启动开始累计
+ */
+public class PluginMetrics {
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final Map<String, CacheStats> caches = new ConcurrentHashMap<>();
+    
+    public OperationStats operation(String name) {
+        return operations.computeIfAbsent(name, OperationStats::new);
+    }
+    
+    public CacheStats cache(String name) {
+        return caches.computeIfAbsent(name, CacheStats::new);
+    }
+    
+    /**
+     * 按名称排序的所有数据库操作统计
+     */
+    public List<OperationStats> getOperations() {
+        List<OperationStats> list = new ArrayList<>(operations.values());
+        list.sort(Comparator.comparing(OperationStats::getName));
+        return list;
+    }
+    
+    /**
+     * 按名称排序的所有缓存统计
+     */
+    public List<CacheStats> getCaches() {
+        List<CacheStats> list = new ArrayList<>(caches.values());
+        list.sort(Comparator.comparing(CacheStats::getName));
+        return list;
+    }
+}
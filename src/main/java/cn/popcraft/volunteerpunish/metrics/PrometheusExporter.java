@@ -0,0 +1,158 @@
+package cn.popcraft.volunteerpunish.metrics;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.cache.ActivePunishmentIndex;
+import cn.popcraft.volunteerpunish.database.DatabaseExecutor;
+import cn.popcraft.volunteerpunish.database.DatabaseManager;
+import cn.popcraft.volunteerpunish.database.PunishmentWriteQueue;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * 定时将运行指标以 Prometheus 文本格式写入文件
+ * 可配合 node_exporter 的 textfile collector 采集
+ */
+public class PrometheusExporter {
+    private static final double[] QUANTILES = {0.5, 0.99};
+    
+    private final VolunteerPunish plugin;
+    private final File file;
+    private BukkitTask task;
+    
+    public PrometheusExporter(VolunteerPunish plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), plugin.getConfigManager().getPrometheusFile());
+    }
+    
+    public void start() {
+        long intervalTicks = plugin.getConfigManager().getPrometheusInterval() * 20L;
+        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::export, intervalTicks, intervalTicks);
+        plugin.getLogger().info("Prometheus 指标将写入: " + file.getPath());
+    }
+    
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+    
+    private void export() {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            Files.write(temp.toPath(), render().getBytes(StandardCharsets.UTF_8));
+            // 先写临时文件再替换，避免采集到写了一半的文件
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("写入 Prometheus 指标文件失败: " + e.getMessage());
+        }
+    }
+    
+    String render() {
+        StringBuilder out = new StringBuilder(4096);
+        PluginMetrics metrics = plugin.getMetrics();
+        
+        out.append("# HELP volunteerpunish_db_operation_seconds Database operation latency, including executor queue time\n");
+        out.append("# TYPE volunteerpunish_db_operation_seconds summary\n");
+        for (OperationStats stats : metrics.getOperations()) {
+            LatencyHistogram latency = stats.getLatency();
+            for (double quantile : QUANTILES) {
+                sample(out, "volunteerpunish_db_operation_seconds", "operation=\"" + stats.getName() + "\",quantile=\"" + quantile + "\"",
+                        seconds(latency.getPercentileNanos(quantile)));
+            }
+            sample(out, "volunteerpunish_db_operation_seconds_sum", "operation=\"" + stats.getName() + "\"", seconds(latency.getTotalNanos()));
+            sample(out, "volunteerpunish_db_operation_seconds_count", "operation=\"" + stats.getName() + "\"", latency.getCount());
+        }
+        
+        out.append("# TYPE volunteerpunish_db_operation_max_seconds gauge\n");
+        for (OperationStats stats : metrics.getOperations()) {
+            sample(out, "volunteerpunish_db_operation_max_seconds", "operation=\"" + stats.getName() + "\"",
+                    seconds(stats.getLatency().getMaxNanos()));
+        }
+        
+        out.append("# TYPE volunteerpunish_db_operation_errors_total counter\n");
+        for (OperationStats stats : metrics.getOperations()) {
+            sample(out, "volunteerpunish_db_operation_errors_total", "operation=\"" + stats.getName() + "\"", stats.getErrors());
+        }
+        
+        out.append("# TYPE volunteerpunish_cache_hits_total counter\n");
+        for (CacheStats stats : metrics.getCaches()) {
+            sample(out, "volunteerpunish_cache_hits_total", "cache=\"" + stats.getName() + "\"", stats.getHits());
+        }
+        out.append("# TYPE volunteerpunish_cache_misses_total counter\n");
+        for (CacheStats stats : metrics.getCaches()) {
+            sample(out, "volunteerpunish_cache_misses_total", "cache=\"" + stats.getName() + "\"", stats.getMisses());
+        }
+        
+        DatabaseManager database = plugin.getDatabase();
+        HikariPoolMXBean pool = database.getPoolStats();
+        HikariPoolMXBean readPool = database.getReadPoolStats();
+        HikariPoolMXBean replicaPool = database.getReplicaPoolStats();
+        if (pool != null) {
+            out.append("# TYPE volunteerpunish_db_pool_connections gauge\n");
+            poolSamples(out, "primary", pool);
+            if (readPool != null) {
+                poolSamples(out, "read", readPool);
+            }
+            if (replicaPool != null) {
+                poolSamples(out, "replica", replicaPool);
+            }
+        }
+        
+        DatabaseExecutor executor = database.getExecutor();
+        if (executor != null) {
+            out.append("# TYPE volunteerpunish_db_executor_pending gauge\n");
+            sample(out, "volunteerpunish_db_executor_pending", null, executor.getPendingCount());
+            out.append("# TYPE volunteerpunish_db_executor_rejected_total counter\n");
+            sample(out, "volunteerpunish_db_executor_rejected_total", null, executor.getRejectedCount());
+        }
+        
+        PunishmentWriteQueue writeQueue = database.getWriteQueue();
+        if (writeQueue != null) {
+            out.append("# TYPE volunteerpunish_write_queue_pending gauge\n");
+            sample(out, "volunteerpunish_write_queue_pending", null, writeQueue.getPendingCount());
+        }
+        
+        ActivePunishmentIndex activePunishments = plugin.getActivePunishments();
+        if (activePunishments != null && activePunishments.isLoaded()) {
+            out.append("# TYPE volunteerpunish_active_punished_players gauge\n");
+            sample(out, "volunteerpunish_active_punished_players", null, activePunishments.size());
+        }
+        return out.toString();
+    }
+    
+    private static void poolSamples(StringBuilder out, String poolName, HikariPoolMXBean pool) {
+        String prefix = "pool=\"" + poolName + "\",state=";
+        sample(out, "volunteerpunish_db_pool_connections", prefix + "\"active\"", pool.getActiveConnections());
+        sample(out, "volunteerpunish_db_pool_connections", prefix + "\"idle\"", pool.getIdleConnections());
+        sample(out, "volunteerpunish_db_pool_connections", prefix + "\"pending\"", pool.getThreadsAwaitingConnection());
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(String.format(Locale.ROOT, "%.6f", value)).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+    
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+}
@@ -6,8 +6,28 @@ import java.util.UUID;
 
 public class Punishment {
     public enum Type {
-        BAN,
-        MUTE
+        BAN(1),
+        MUTE(2);
+        
+        // 数据库中 type 列存储的数值，已写入的值不可修改
+        private final int code;
+        
+        Type(int code) {
+            this.code = code;
+        }
+        
+        public int getCode() {
+            return code;
+        }
+        
+        public static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("未知的处罚类型: " + code);
+        }
     }
     
     private int id;
@@ -0,0 +1,153 @@
+package cn.popcraft.volunteerpunish.sync;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * 通过 BungeeCord/Velocity 代理的插件消息通道（BungeeCord Forward ALL）转发事件
+ * 插件消息必须借助一名在线玩家的连接发送，没有玩家在线时先缓存，有玩家加入后再发送
+ * 接收同样依赖玩家连接，没有玩家在线期间其他服务器的消息由代理暂存，第一名玩家连接后才送达
+ * 消息可能丢失（缓存溢出、停止时未发送），只用于及时通知，是否被处罚仍以数据库为准
+ */
+public class PluginMessageSyncBus implements SyncBus, PluginMessageListener, Listener {
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUBCHANNEL = "VolunteerPunish";
+    // 没有玩家在线时最多缓存的消息数，超出后丢弃最早的消息
+    private static final int MAX_PENDING = 256;
+    
+    private final VolunteerPunish plugin;
+    private final String serverId;
+    private final Deque<byte[]> pending = new ArrayDeque<>();
+    private volatile Consumer<SyncEvent> handler;
+    
+    public PluginMessageSyncBus(VolunteerPunish plugin, String serverId) {
+        this.plugin = plugin;
+        this.serverId = serverId;
+    }
+    
+    @Override
+    public void start(Consumer<SyncEvent> handler) {
+        this.handler = handler;
+        plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL);
+        plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin, CHANNEL, this);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+    
+    @Override
+    public void publish(SyncEvent event) {
+        byte[] message;
+        try {
+            message = encode(event);
+        } catch (IOException e) {
+            plugin.getLogger().warning("编码同步消息失败: " + e.getMessage());
+            return;
+        }
+        plugin.getMainThreadExecutor().execute(() -> send(message));
+    }
+    
+    @Override
+    public void stop() {
+        handler = null;
+        plugin.getServer().getMessenger().unregisterIncomingPluginChannel(plugin);
+        plugin.getServer().getMessenger().unregisterOutgoingPluginChannel(plugin);
+        HandlerList.unregisterAll(this);
+        synchronized (pending) {
+            if (!pending.isEmpty()) {
+                plugin.getLogger().warning("没有玩家在线，" + pending.size() + " 条同步消息未能发送");
+                pending.clear();
+            }
+        }
+    }
+    
+    private void send(byte[] message) {
+        Iterator<? extends Player> players = Bukkit.getOnlinePlayers().iterator();
+        if (!players.hasNext()) {
+            synchronized (pending) {
+                if (pending.size() >= MAX_PENDING) {
+                    pending.pollFirst();
+                }
+                pending.addLast(message);
+            }
+            return;
+        }
+        players.next().sendPluginMessage(plugin, CHANNEL, message);
+    }
+    
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+        }
+        // 玩家刚加入时连接可能尚未绑定到本服务器，稍后再发送
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            byte[] message;
+            while (true) {
+                synchronized (pending) {
+                    message = pending.pollFirst();
+                }
+                if (message == null) {
+                    break;
+                }
+                send(message);
+            }
+        }, 20L);
+    }
+    
+    @Override
+    public void onPluginMessageReceived(String channel, Player player, byte[] message) {
+        Consumer<SyncEvent> target = handler;
+        if (!CHANNEL.equals(channel) || target == null) {
+            return;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+            if (!SUBCHANNEL.equals(in.readUTF())) {
+                return;
+            }
+            byte[] data = new byte[in.readUnsignedShort()];
+            in.readFully(data);
+            
+            DataInputStream payload = new DataInputStream(new ByteArrayInputStream(data));
+            if (serverId.equals(payload.readUTF())) {
+                return;
+            }
+            target.accept(SyncEvent.read(payload));
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("解析同步消息失败: " + e.getMessage());
+        }
+    }
+    
+    private byte[] encode(SyncEvent event) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeUTF(serverId);
+        event.write(payload);
+        
+        ByteArrayOutputStream messageBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(messageBytes);
+        out.writeUTF("Forward");
+        out.writeUTF("ALL");
+        out.writeUTF(SUBCHANNEL);
+        out.writeShort(payloadBytes.size());
+        out.write(payloadBytes.toByteArray());
+        return messageBytes.toByteArray();
+    }
+}
@@ -0,0 +1,131 @@
+package cn.popcraft.volunteerpunish.sync;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * 跨服同步
+ * 广播本服务器的处罚和志愿者变更，并把其他服务器的事件应用到本地缓存和在线玩家，不需要轮询数据库
+ */
+public class PunishmentSync {
+    private final VolunteerPunish plugin;
+    // 未启用同步时为null
+    private final SyncBus bus;
+
+    private PunishmentSync(VolunteerPunish plugin, SyncBus bus) {
+        this.plugin = plugin;
+        this.bus = bus;
+    }
+
+    /**
+     * 根据 sync.type 配置创建同步
+     */
+    public static PunishmentSync create(VolunteerPunish plugin) {
+        String type = plugin.getConfigManager().getSyncType();
+        String serverId = plugin.getConfigManager().getSyncServerId();
+        if (serverId.isEmpty()) {
+            serverId = UUID.randomUUID().toString();
+        }
+
+        SyncBus bus;
+        if ("plugin-message".equalsIgnoreCase(type)) {
+            bus = new PluginMessageSyncBus(plugin, serverId);
+        } else {
+            if (!"none".equalsIgnoreCase(type)) {
+                plugin.getLogger().warning("不支持的同步方式: " + type + "，已禁用跨服同步");
+            }
+            bus = null;
+        }
+        return new PunishmentSync(plugin, bus);
+    }
+
+    public void start() {
+        if (bus != null) {
+            bus.start(this::handle);
+            plugin.getLogger().info("跨服同步已启用: " + plugin.getConfigManager().getSyncType());
+        }
+    }
+
+    public void stop() {
+        if (bus != null) {
+            bus.stop();
+        }
+    }
+
+    public boolean isEnabled() {
+        return bus != null;
+    }
+
+    /**
+     * 广播玩家被封禁或禁言
+     * @param expiresAt 到期时间，null表示永久
+     */
+    public void publishPunish(UUID target, Punishment.Type type, Date expiresAt, String reason) {
+        if (bus != null) {
+            bus.publish(SyncEvent.punish(target, type, expiresAt, reason));
+        }
+    }
+
+    /**
+     * 广播玩家被解封或解除禁言
+     */
+    public void publishUnpunish(UUID target, Punishment.Type type) {
+        if (bus != null) {
+            bus.publish(SyncEvent.unpunish(target, type));
+        }
+    }
+
+    /**
+     * 广播志愿者信息发生变化（设置ID、修改身份组或移除）
+     */
+    public void publishVolunteerChange(UUID target) {
+        if (bus != null) {
+            bus.publish(SyncEvent.volunteer(target));
+        }
+    }
+
+    private void handle(SyncEvent event) {
+        if (event.getAction() == SyncEvent.Action.VOLUNTEER) {
+            // 重新读取志愿者信息，权限也可能已经变化
+            plugin.getVolunteerCache().refresh(event.getTarget()).whenComplete((volunteer, throwable) -> {
+                if (throwable != null) {
+                    plugin.getLogger().warning("同步志愿者信息失败: " + event.getTarget() + ", " + throwable.getMessage());
+                }
+                if (plugin.getLuckPermsHook() != null) {
+                    plugin.getLuckPermsHook().invalidate(event.getTarget());
+                }
+            });
+            return;
+        }
+
+        // 踢出玩家、修改封禁列表等操作需要在主线程执行
+        plugin.getMainThreadExecutor().execute(() -> apply(event));
+    }
+
+    private void apply(SyncEvent event) {
+        UUID target = event.getTarget();
+        boolean punish = event.getAction() == SyncEvent.Action.PUNISH;
+        if (event.getPunishmentType() == Punishment.Type.BAN) {
+            if (punish) {
+                plugin.applyBan(target, event.getExpiresAt(), event.getReason());
+            } else {
+                plugin.applyUnban(target);
+            }
+        } else if (event.getPunishmentType() == Punishment.Type.MUTE) {
+            if (punish) {
+                plugin.applyMute(target, event.getExpiresAt());
+                Player player = Bukkit.getPlayer(target);
+                if (player != null && player.isOnline()) {
+                    player.sendMessage("§c你已被禁言" + (event.getReason() != null ? "，原因: " + event.getReason() : ""));
+                }
+            } else {
+                plugin.applyUnmute(target);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package cn.popcraft.volunteerpunish.sync;
+
+import java.util.function.Consumer;
+
+/**
+ * 服务器之间的事件传输方式
+ * 实现只负责投递，不会把事件投递回发出它的服务器
+ */
+public interface SyncBus {
+    /**
+     * 开始接收其他服务器的事件
+     * @param handler 事件处理器，可能在任意线程中调用
+     */
+    void start(Consumer<SyncEvent> handler);
+    
+    /**
+     * 向其他服务器广播事件
+     */
+    void publish(SyncEvent event);
+    
+    void stop();
+}
@@ -0,0 +1,121 @@
+package cn.popcraft.volunteerpunish.sync;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * 在服务器之间同步的事件
+ */
+public final class SyncEvent {
+    // 消息格式版本，写在最前面；旧版本按枚举序号写入，首字节只会是 0-2，两边都会拒绝对方的消息而不是解析错
+    private static final int FORMAT_VERSION = 3;
+    
+    public enum Action {
+        // 玩家被封禁或禁言
+        PUNISH(1),
+        // 玩家被解封或解除禁言
+        UNPUNISH(2),
+        // 志愿者信息被设置、修改或移除
+        VOLUNTEER(3);
+        
+        // 消息中存储的数值，不同版本的服务器之间互相解析，已使用的值不可修改
+        private final int code;
+        
+        Action(int code) {
+            this.code = code;
+        }
+        
+        public int getCode() {
+            return code;
+        }
+        
+        public static Action fromCode(int code) {
+            for (Action action : values()) {
+                if (action.code == code) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("未知的同步事件: " + code);
+        }
+    }
+    
+    private final Action action;
+    private final UUID target;
+    private final Punishment.Type punishmentType;
+    private final Date expiresAt;
+    private final String reason;
+    
+    private SyncEvent(Action action, UUID target, Punishment.Type punishmentType, Date expiresAt, String reason) {
+        this.action = action;
+        this.target = target;
+        this.punishmentType = punishmentType;
+        this.expiresAt = expiresAt;
+        this.reason = reason;
+    }
+    
+    /**
+     * @param expiresAt 到期时间，null表示永久
+     */
+    public static SyncEvent punish(UUID target, Punishment.Type type, Date expiresAt, String reason) {
+        return new SyncEvent(Action.PUNISH, target, type, expiresAt, reason);
+    }
+    
+    public static SyncEvent unpunish(UUID target, Punishment.Type type) {
+        return new SyncEvent(Action.UNPUNISH, target, type, null, null);
+    }
+    
+    public static SyncEvent volunteer(UUID target) {
+        return new SyncEvent(Action.VOLUNTEER, target, null, null, null);
+    }
+    
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(action.getCode());
+        out.writeLong(target.getMostSignificantBits());
+        out.writeLong(target.getLeastSignificantBits());
+        out.writeByte(punishmentType != null ? punishmentType.getCode() : 0);
+        out.writeLong(expiresAt != null ? expiresAt.getTime() : -1L);
+        out.writeUTF(reason != null ? reason : "");
+    }
+    
+    public static SyncEvent read(DataInput in) throws IOException {
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("不支持的同步消息格式: " + version);
+        }
+        Action action = Action.fromCode(in.readByte());
+        UUID target = new UUID(in.readLong(), in.readLong());
+        int type = in.readByte();
+        long expiresAt = in.readLong();
+        String reason = in.readUTF();
+        return new SyncEvent(action, target,
+                type != 0 ? Punishment.Type.fromCode(type) : null,
+                expiresAt >= 0 ? new Date(expiresAt) : null,
+                reason.isEmpty() ? null : reason);
+    }
+    
+    public Action getAction() {
+        return action;
+    }
+    
+    public UUID getTarget() {
+        return target;
+    }
+    
+    public Punishment.Type getPunishmentType() {
+        return punishmentType;
+    }
+    
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,139 @@
+package cn.popcraft.volunteerpunish.task;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * 处罚到期任务
+ * 按到期时间维护一个优先队列，到期后批量停用数据库中的处罚记录并通知在线玩家
+ */
+public class PunishmentExpiryTask {
+    private final VolunteerPunish plugin;
+    private final PriorityQueue<ExpiryEntry> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.expiresAt));
+    private BukkitTask task;
+    
+    public PunishmentExpiryTask(VolunteerPunish plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * 加载所有有期限的生效处罚并启动定时检查（每秒一次）
+     */
+    public void start() {
+        plugin.getDatabase().getExpiringPunishments().thenAccept(punishments -> {
+            synchronized (queue) {
+                for (Punishment punishment : punishments) {
+                    queue.add(new ExpiryEntry(punishment.getTargetUuid(), punishment.getType(), punishment.getExpiresAt().getTime()));
+                }
+            }
+            plugin.getLogger().info("已加载 " + punishments.size() + " 条待到期的处罚记录");
+        }).exceptionally(throwable -> {
+            plugin.getLogger().severe("加载待到期的处罚记录失败: " + throwable.getMessage());
+            return null;
+        });
+        
+        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::tick, 20L, 20L);
+    }
+    
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+    
+    /**
+     * 登记一条新的有期限处罚
+     * @param expiresAt 到期时间，null表示永久（不登记）
+     */
+    public void schedule(UUID targetUuid, Punishment.Type type, Date expiresAt) {
+        if (expiresAt == null) {
+            return;
+        }
+        synchronized (queue) {
+            queue.add(new ExpiryEntry(targetUuid, type, expiresAt.getTime()));
+        }
+    }
+    
+    /**
+     * 处罚被手动解除时移除对应的到期登记
+     */
+    public void cancel(UUID targetUuid, Punishment.Type type) {
+        synchronized (queue) {
+            queue.removeIf(entry -> entry.targetUuid.equals(targetUuid) && entry.type == type);
+        }
+    }
+    
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<ExpiryEntry> expired = new ArrayList<>();
+        synchronized (queue) {
+            while (!queue.isEmpty() && queue.peek().expiresAt <= now) {
+                expired.add(queue.poll());
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        
+        for (ExpiryEntry entry : expired) {
+            plugin.getActivePunishments().expire(entry.targetUuid, entry.type, now);
+        }
+        
+        // 一条 UPDATE 停用所有已到期的处罚
+        plugin.getDatabase().deactivateExpiredPunishments(new Date(now)).thenAccept(count -> {
+            if (count > 0) {
+                plugin.getLogger().info("已停用 " + count + " 条到期的处罚记录");
+            }
+        }).exceptionally(throwable -> {
+            plugin.getLogger().severe("停用到期的处罚记录失败: " + throwable.getMessage());
+            return null;
+        });
+        
+        // 通知禁言到期的在线玩家（缓存中的状态已在本地到期）
+        List<UUID> unmuted = new ArrayList<>();
+        for (ExpiryEntry entry : expired) {
+            if (entry.type == Punishment.Type.MUTE && !plugin.getMuteCache().isMuted(entry.targetUuid)) {
+                unmuted.add(entry.targetUuid);
+            }
+        }
+        if (!unmuted.isEmpty()) {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                for (UUID uuid : unmuted) {
+                    Player player = Bukkit.getPlayer(uuid);
+                    if (player != null && player.isOnline()) {
+                        player.sendMessage("§a你的禁言已到期，现在可以正常发言了");
+                    }
+                }
+            });
+        }
+    }
+    
+    public int size() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+    
+    private static class ExpiryEntry {
+        private final UUID targetUuid;
+        private final Punishment.Type type;
+        private final long expiresAt;
+        
+        ExpiryEntry(UUID targetUuid, Punishment.Type type, long expiresAt) {
+            this.targetUuid = targetUuid;
+            this.type = type;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cn.popcraft.volunteerpunish.task;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import org.bukkit.BanList;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 原版封禁列表（banned-players.json）的镜像
+ * 封禁以插件数据库为准，由插件在登录时拦截；原版列表每修改一名玩家都会重写整个文件，且没有批量修改的接口，
+ * 因此封禁和解封先进入队列，同一玩家的多次操作只保留最后一次，由定时任务每次最多修改一名玩家
+ * BanList 不是线程安全的，写入仍在主线程执行；每次修改仍要完整重写一次文件，只是不再集中在执行命令的那一刻
+ */
+public class VanillaBanMirror {
+    private static final String SOURCE = "VolunteerPunish Plugin";
+    
+    private final VolunteerPunish plugin;
+    // 保持提交顺序，同一玩家的新操作覆盖旧操作
+    private final Map<UUID, PendingBan> pending = new LinkedHashMap<>();
+    private BukkitTask task;
+    
+    public VanillaBanMirror(VolunteerPunish plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * 启动定时写入
+     */
+    public void start() {
+        long period = Math.max(1L, plugin.getConfigManager().getVanillaMirrorFlushInterval() / 50L);
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, period, period);
+    }
+    
+    /**
+     * 停止定时写入并写入剩余的所有操作（需要在主线程调用）
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        flushAll();
+    }
+    
+    /**
+     * 登记一次封禁，未开启镜像时忽略
+     * @param expiration 到期时间，null表示永久
+     */
+    public void ban(UUID uuid, String reason, Date expiration) {
+        if (!plugin.getConfigManager().isVanillaMirrorEnabled()) {
+            return;
+        }
+        enqueue(uuid, new PendingBan(true, reason, expiration));
+    }
+    
+    /**
+     * 登记一次解封
+     * 未开启镜像时同样需要处理，旧版本写入原版列表的封禁只能在这里移除
+     */
+    public void pardon(UUID uuid) {
+        enqueue(uuid, new PendingBan(false, null, null));
+    }
+    
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+    
+    private void enqueue(UUID uuid, PendingBan ban) {
+        synchronized (pending) {
+            // 先移除再放入，使该玩家排到队尾
+            pending.remove(uuid);
+            pending.put(uuid, ban);
+        }
+    }
+    
+    private void flush() {
+        apply(1);
+    }
+    
+    private void flushAll() {
+        apply(Integer.MAX_VALUE);
+    }
+    
+    /**
+     * 依次取出队列中的操作，直到修改了 limit 次列表或队列为空
+     * 不需要修改列表的操作（玩家名未知、解封不在列表中的玩家）不计入次数
+     */
+    private void apply(int limit) {
+        BanList banList = plugin.getServer().getBanList(BanList.Type.NAME);
+        int mutations = 0;
+        while (mutations < limit) {
+            UUID uuid;
+            PendingBan ban;
+            synchronized (pending) {
+                Iterator<Map.Entry<UUID, PendingBan>> iterator = pending.entrySet().iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                Map.Entry<UUID, PendingBan> entry = iterator.next();
+                iterator.remove();
+                uuid = entry.getKey();
+                ban = entry.getValue();
+            }
+            
+            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+            String name = player.getName();
+            if (name == null) {
+                continue;
+            }
+            
+            try {
+                if (ban.banned) {
+                    mutations++;
+                    banList.addBan(name, ban.reason, ban.expiration, SOURCE);
+                } else if (banList.isBanned(name)) {
+                    // 列表中没有该玩家时不调用 pardon，避免无意义的文件重写
+                    mutations++;
+                    banList.pardon(name);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("同步原版封禁列表失败: " + name + ", " + e.getMessage());
+            }
+        }
+    }
+    
+    private static class PendingBan {
+        private final boolean banned;
+        private final String reason;
+        private final Date expiration;
+        
+        PendingBan(boolean banned, String reason, Date expiration) {
+            this.banned = banned;
+            this.reason = reason;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package cn.popcraft.volunteerpunish.util;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 在服务器主线程上执行任务的 Executor
+ * 用于 CompletableFuture 链中需要调用 Bukkit API 的步骤（thenAcceptAsync(..., mainThread)）
+ * 已在主线程时直接执行，否则安排到下一个 tick
+ */
+public class MainThreadExecutor implements Executor {
+    private final VolunteerPunish plugin;
+    
+    public MainThreadExecutor(VolunteerPunish plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        if (Bukkit.isPrimaryThread()) {
+            command.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, command);
+        }
+    }
+}
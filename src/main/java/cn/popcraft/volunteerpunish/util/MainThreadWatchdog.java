@@ -0,0 +1,55 @@
+package cn.popcraft.volunteerpunish.util;
+
+import cn.popcraft.volunteerpunish.VolunteerPunish;
+import cn.popcraft.volunteerpunish.metrics.OperationStats;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 主线程阻塞等待的监控
+ * 仍需同步结果的旧接口通过 await 等待，在主线程上等待超过阈值时记录警告和调用位置
+ */
+public class MainThreadWatchdog {
+    private final VolunteerPunish plugin;
+    private final OperationStats stats;
+    
+    public MainThreadWatchdog(VolunteerPunish plugin) {
+        this.plugin = plugin;
+        this.stats = plugin.getMetrics().operation("mainThreadWait");
+    }
+    
+    /**
+     * 等待 future 完成并返回结果
+     * @param operation 操作名称，用于日志
+     */
+    public <T> T await(CompletableFuture<T> future, String operation) {
+        if (future.isDone() || !Bukkit.isPrimaryThread()) {
+            return future.join();
+        }
+        
+        long start = System.nanoTime();
+        try {
+            return future.join();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            stats.record(elapsed);
+            long thresholdMillis = plugin.getConfigManager().getMainThreadWaitThreshold();
+            long elapsedMillis = elapsed / 1_000_000;
+            if (thresholdMillis > 0 && elapsedMillis >= thresholdMillis) {
+                plugin.getLogger().warning("主线程等待 " + operation + " 耗时 " + elapsedMillis + "ms（阈值 " + thresholdMillis
+                        + "ms），调用位置: " + findCaller());
+            }
+        }
+    }
+    
+    private static String findCaller() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (!className.equals(MainThreadWatchdog.class.getName()) && !className.equals(VolunteerPunish.class.getName())) {
+                return element.toString();
+            }
+        }
+        return "未知";
+    }
+}
@@ -0,0 +1,173 @@
+package cn.popcraft.volunteerpunish.util;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.bukkit.ChatColor;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 预编译的消息模板
+ * 加载配置时把模板拆分为文本片段和占位符，颜色代码只在编译时转换一次
+ * 渲染时直接写入一个 StringBuilder，不产生中间字符串，可以在任意线程中使用
+ */
+public final class MessageTemplate {
+    // 线程安全，可以在异步回调中共用
+    public static final DateTimeFormatter DATE_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    
+    /**
+     * 支持的占位符
+     */
+    public enum Placeholder {
+        ID("id"),
+        VOLUNTEER_ID("volunteer_id"),
+        TYPE("type"),
+        DURATION("duration"),
+        REASON("reason"),
+        ISSUED_AT("issued_at"),
+        UNBAN_TIME("unban_time");
+        
+        private final String key;
+        
+        Placeholder(String key) {
+            this.key = key;
+        }
+        
+        private static Placeholder of(String key) {
+            for (Placeholder placeholder : values()) {
+                if (placeholder.key.equals(key)) {
+                    return placeholder;
+                }
+            }
+            return null;
+        }
+    }
+    
+    // literals 比 slots 多一个元素，渲染顺序为 literals[0] slots[0] literals[1] ... literals[n]
+    private final String[] literals;
+    private final Placeholder[] slots;
+    private final int literalLength;
+    
+    private MessageTemplate(String[] literals, Placeholder[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+    
+    /**
+     * 编译模板，&颜色代码转换为§，未知的 {占位符} 原样保留
+     */
+    public static MessageTemplate compile(String template) {
+        String translated = ChatColor.translateAlternateColorCodes('&', template);
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> slots = new ArrayList<>();
+        
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while (index < translated.length()) {
+            int open = translated.indexOf('{', index);
+            int close = open >= 0 ? translated.indexOf('}', open) : -1;
+            if (close < 0) {
+                literal.append(translated, index, translated.length());
+                break;
+            }
+            
+            Placeholder placeholder = Placeholder.of(translated.substring(open + 1, close));
+            if (placeholder == null) {
+                literal.append(translated, index, close + 1);
+            } else {
+                literal.append(translated, index, open);
+                literals.add(literal.toString());
+                slots.add(placeholder);
+                literal.setLength(0);
+            }
+            index = close + 1;
+        }
+        literals.add(literal.toString());
+        
+        return new MessageTemplate(literals.toArray(new String[0]), slots.toArray(new Placeholder[0]));
+    }
+    
+    /**
+     * 使用处罚记录的字段渲染模板
+     * @param missingReason 处罚没有原因时使用的文本
+     */
+    public String render(Punishment punishment, String missingReason) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        
+        StringBuilder builder = new StringBuilder(literalLength + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            appendValue(builder, slots[i], punishment, missingReason);
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+    
+    private static void appendValue(StringBuilder builder, Placeholder placeholder, Punishment punishment, String missingReason) {
+        switch (placeholder) {
+            case ID:
+                builder.append(punishment.getId());
+                break;
+            case VOLUNTEER_ID:
+                builder.append(punishment.getVolunteerId() != null ? punishment.getVolunteerId() : "未知");
+                break;
+            case TYPE:
+                builder.append(punishment.getType() == Punishment.Type.BAN ? "封禁" : "禁言");
+                break;
+            case DURATION:
+                appendDuration(builder, punishment.getDuration());
+                break;
+            case REASON:
+                builder.append(punishment.getReason() != null ? punishment.getReason() : missingReason);
+                break;
+            case ISSUED_AT:
+                appendDate(builder, punishment.getIssuedAt());
+                break;
+            case UNBAN_TIME:
+                appendDate(builder, punishment.getExpiresAt());
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * 写入时间，null表示永久
+     */
+    private static void appendDate(StringBuilder builder, Date date) {
+        if (date == null) {
+            builder.append("永久");
+        } else {
+            DATE_TIME.formatTo(Instant.ofEpochMilli(date.getTime()), builder);
+        }
+    }
+    
+    /**
+     * 写入时长（秒），0表示永久
+     */
+    private static void appendDuration(StringBuilder builder, long seconds) {
+        if (seconds <= 0) {
+            builder.append("永久");
+        } else if (seconds < 60) {
+            builder.append(seconds).append("秒");
+        } else if (seconds < 3600) {
+            builder.append(seconds / 60).append("分钟");
+        } else if (seconds < 86400) {
+            builder.append(seconds / 3600).append("小时");
+        } else {
+            builder.append(seconds / 86400).append("天");
+        }
+    }
+}
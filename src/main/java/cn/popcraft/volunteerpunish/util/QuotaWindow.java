@@ -0,0 +1,28 @@
+package cn.popcraft.volunteerpunish.util;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * 每日配额的重置窗口
+ * 以配置时区的每天 0 点为界，last_reset 早于当前窗口起点的配额计数视为已过期
+ */
+public final class QuotaWindow {
+    private QuotaWindow() {
+    }
+    
+    /**
+     * 获取当前窗口的起点（配置时区今天的 0 点）
+     */
+    public static Timestamp currentStart(ZoneId zone) {
+        return Timestamp.from(LocalDate.now(zone).atStartOfDay(zone).toInstant());
+    }
+    
+    /**
+     * 上次重置时间是否早于当前窗口，从未重置过也视为过期
+     */
+    public static boolean isExpired(Timestamp lastReset, Timestamp windowStart) {
+        return lastReset == null || lastReset.before(windowStart);
+    }
+}
@@ -0,0 +1,153 @@
+package cn.popcraft.volunteerpunish.cache;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivePunishmentIndexTest {
+    private static final Date PERMANENT = null;
+
+    private ActivePunishmentIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // put/remove/expire/isActive 不访问插件，只有 load 需要数据库
+        index = new ActivePunishmentIndex(null);
+    }
+
+    /**
+     * msb ^ lsb 相同的 UUID 哈希值相同，全部落在同一个探测序列上
+     */
+    private static UUID colliding(long i) {
+        return new UUID(i, i);
+    }
+
+    @Test
+    void putAndRemoveTrackTypesSeparately() {
+        UUID uuid = UUID.randomUUID();
+        index.put(uuid, Punishment.Type.BAN, PERMANENT);
+        index.put(uuid, Punishment.Type.MUTE, PERMANENT);
+        assertEquals(1, index.size());
+
+        index.remove(uuid, Punishment.Type.BAN);
+        assertFalse(index.isActive(uuid, Punishment.Type.BAN));
+        assertTrue(index.isActive(uuid, Punishment.Type.MUTE));
+        assertEquals(1, index.size());
+
+        index.remove(uuid, Punishment.Type.MUTE);
+        assertFalse(index.isActive(uuid, Punishment.Type.MUTE));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void removingFromCollisionChainKeepsLaterEntriesReachable() {
+        int count = 64;
+        for (int i = 0; i < count; i++) {
+            index.put(colliding(i), Punishment.Type.BAN, PERMANENT);
+        }
+
+        // 删除探测序列前部和中间的条目，后面的条目需要前移
+        for (int i = 0; i < count; i += 3) {
+            index.remove(colliding(i), Punishment.Type.BAN);
+        }
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 3 != 0, index.isActive(colliding(i), Punishment.Type.BAN), "entry " + i);
+        }
+        assertEquals(count - (count + 2) / 3, index.size());
+    }
+
+    @Test
+    void reinsertAfterRemoveDoesNotDuplicate() {
+        int count = 32;
+        for (int i = 0; i < count; i++) {
+            index.put(colliding(i), Punishment.Type.MUTE, PERMANENT);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < count; i += 2) {
+                index.remove(colliding(i), Punishment.Type.MUTE);
+            }
+            for (int i = 0; i < count; i += 2) {
+                index.put(colliding(i), Punishment.Type.MUTE, PERMANENT);
+            }
+        }
+
+        assertEquals(count, index.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(index.isActive(colliding(i), Punishment.Type.MUTE), "entry " + i);
+        }
+
+        // 每个条目只存在一份，全部删除后不应残留
+        for (int i = 0; i < count; i++) {
+            index.remove(colliding(i), Punishment.Type.MUTE);
+        }
+        assertEquals(0, index.size());
+        for (int i = 0; i < count; i++) {
+            assertFalse(index.isActive(colliding(i), Punishment.Type.MUTE), "entry " + i);
+        }
+    }
+
+    @Test
+    void entriesSurviveResize() {
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            index.put(new UUID(i * 31L, i), Punishment.Type.BAN, PERMANENT);
+        }
+        for (int i = 0; i < count; i += 2) {
+            index.remove(new UUID(i * 31L, i), Punishment.Type.BAN);
+        }
+
+        assertEquals(count / 2, index.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 1, index.isActive(new UUID(i * 31L, i), Punishment.Type.BAN), "entry " + i);
+        }
+    }
+
+    @Test
+    void putKeepsLaterExpiry() {
+        UUID uuid = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        index.put(uuid, Punishment.Type.BAN, new Date(now + 60000L));
+        index.put(uuid, Punishment.Type.BAN, new Date(now + 1000L));
+
+        Punishment active = index.getActive(uuid, Punishment.Type.BAN);
+        assertNotNull(active);
+        assertEquals(now + 60000L, active.getExpiresAt().getTime());
+
+        index.put(uuid, Punishment.Type.BAN, PERMANENT);
+        assertNull(index.getActive(uuid, Punishment.Type.BAN).getExpiresAt());
+    }
+
+    @Test
+    void expireOnlyRemovesElapsedPunishments() {
+        UUID uuid = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        index.put(uuid, Punishment.Type.MUTE, new Date(now + 60000L));
+
+        // 到期检查使用的是旧的到期时间，处罚已被延长
+        index.expire(uuid, Punishment.Type.MUTE, now);
+        assertTrue(index.isActive(uuid, Punishment.Type.MUTE));
+
+        index.expire(uuid, Punishment.Type.MUTE, now + 60000L);
+        assertFalse(index.isActive(uuid, Punishment.Type.MUTE));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void elapsedPunishmentIsNotActive() {
+        UUID uuid = UUID.randomUUID();
+        index.put(uuid, Punishment.Type.BAN, new Date(System.currentTimeMillis() - 1000L));
+
+        assertFalse(index.isActive(uuid, Punishment.Type.BAN));
+        assertNull(index.getActive(uuid, Punishment.Type.BAN));
+    }
+}
@@ -0,0 +1,144 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.metrics.OperationStats;
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PunishmentWriteQueueTest {
+    private static final long NOW = 1700000000000L;
+    
+    private TestDatabase database;
+    private PunishmentDao punishments;
+    private PunishmentWriteQueue queue;
+    
+    @BeforeEach
+    void setUp() throws IOException, SQLException {
+        database = TestDatabase.open();
+        punishments = new PunishmentDao(database.getStatements());
+        // 批量大小足够大且不启动定时器，只在测试调用 flush 时写入
+        queue = new PunishmentWriteQueue(Logger.getLogger("VolunteerPunish-Test"), database.getDataSource(),
+                punishments, Runnable::run, 100, 1000L, new OperationStats("test"));
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        database.close();
+    }
+    
+    private static Punishment punishment(UUID target, String volunteerId, Punishment.Type type, Date expiresAt) {
+        Punishment punishment = new Punishment();
+        punishment.setTargetUuid(target);
+        punishment.setVolunteerId(volunteerId);
+        punishment.setType(type);
+        punishment.setDuration(expiresAt != null ? 3600L : 0L);
+        punishment.setReason("test");
+        punishment.setIssuedAt(new Date(NOW));
+        punishment.setExpiresAt(expiresAt);
+        punishment.setActive(true);
+        return punishment;
+    }
+    
+    private List<Punishment> history(UUID target) throws SQLException {
+        try (Connection connection = database.getConnection()) {
+            return punishments.findPageAfter(connection, target, Long.MAX_VALUE, Integer.MAX_VALUE, 100);
+        }
+    }
+    
+    @Test
+    void flushWritesInsertsAndDeactivationsInOrder() throws SQLException {
+        UUID target = UUID.randomUUID();
+        Date expiresAt = new Date(NOW + 3600000L);
+        CompletableFuture<Void> insert = queue.enqueueInsert(punishment(target, "V01", Punishment.Type.MUTE, expiresAt));
+        CompletableFuture<Void> deactivate = queue.enqueueDeactivate(target, Punishment.Type.MUTE);
+        queue.enqueueInsert(punishment(target, "V02", Punishment.Type.BAN, null));
+        assertEquals(3, queue.getPendingCount());
+        
+        queue.flush();
+        
+        assertTrue(insert.isDone() && !insert.isCompletedExceptionally());
+        assertTrue(deactivate.isDone() && !deactivate.isCompletedExceptionally());
+        assertEquals(0, queue.getPendingCount());
+        
+        // 按 issued_at、id 倒序：后插入的封禁在前
+        List<Punishment> rows = history(target);
+        assertEquals(2, rows.size());
+        Punishment ban = rows.get(0);
+        assertEquals(target, ban.getTargetUuid());
+        assertEquals("V02", ban.getVolunteerId());
+        assertEquals(Punishment.Type.BAN, ban.getType());
+        assertNull(ban.getExpiresAt());
+        assertTrue(ban.isActive());
+        
+        Punishment mute = rows.get(1);
+        assertEquals(Punishment.Type.MUTE, mute.getType());
+        assertEquals(expiresAt, mute.getExpiresAt());
+        assertEquals(NOW, mute.getIssuedAt().getTime());
+        assertEquals("test", mute.getReason());
+        // 停用操作在插入之后执行
+        assertFalse(mute.isActive());
+    }
+    
+    @Test
+    void failedBatchFallsBackToSingleWrites() throws SQLException {
+        UUID target = UUID.randomUUID();
+        CompletableFuture<Void> first = queue.enqueueInsert(punishment(target, "V01", Punishment.Type.BAN, null));
+        // volunteer_id 为 NOT NULL，这一条会使整批失败
+        CompletableFuture<Void> broken = queue.enqueueInsert(punishment(target, null, Punishment.Type.BAN, null));
+        CompletableFuture<Void> last = queue.enqueueInsert(punishment(target, "V03", Punishment.Type.MUTE, null));
+        
+        queue.flush();
+        
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(broken.isCompletedExceptionally());
+        assertTrue(last.isDone() && !last.isCompletedExceptionally());
+        assertEquals(0, queue.getPendingCount());
+        
+        // 整批回滚后逐条写入，成功的两条各只写入一次
+        try (Connection connection = database.getConnection()) {
+            assertEquals(2, punishments.countByTarget(connection, target));
+        }
+    }
+    
+    @Test
+    void pendingStateReflectsQueuedWritesUntilFlushed() {
+        UUID target = UUID.randomUUID();
+        assertNull(queue.pendingState(target, Punishment.Type.BAN, NOW));
+        
+        Punishment ban = punishment(target, "V01", Punishment.Type.BAN, new Date(NOW + 3600000L));
+        queue.enqueueInsert(ban);
+        PunishmentWriteQueue.PendingState state = queue.pendingState(target, Punishment.Type.BAN, NOW);
+        assertNotNull(state);
+        assertTrue(state.isActive());
+        assertSame(ban, state.getPunishment());
+        
+        // 其他类型、其他玩家以及到期后都不受影响
+        assertNull(queue.pendingState(target, Punishment.Type.MUTE, NOW));
+        assertNull(queue.pendingState(UUID.randomUUID(), Punishment.Type.BAN, NOW));
+        assertNull(queue.pendingState(target, Punishment.Type.BAN, NOW + 3600000L));
+        
+        // 后提交的停用操作覆盖前面的处罚
+        queue.enqueueDeactivate(target, Punishment.Type.BAN);
+        assertFalse(queue.pendingState(target, Punishment.Type.BAN, NOW).isActive());
+        
+        queue.flush();
+        assertNull(queue.pendingState(target, Punishment.Type.BAN, NOW));
+    }
+}
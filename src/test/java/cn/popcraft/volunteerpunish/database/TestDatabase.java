@@ -0,0 +1,63 @@
+package cn.popcraft.volunteerpunish.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * 测试使用的 SQLite 临时数据库
+ * 表结构由 SchemaMigrator 的迁移创建，与插件运行时一致
+ */
+final class TestDatabase implements AutoCloseable {
+    private final HikariDataSource dataSource;
+    private final StatementCache statements;
+    private final Path file;
+    
+    private TestDatabase(HikariDataSource dataSource, Path file) {
+        this.dataSource = dataSource;
+        this.statements = new StatementCache(SqlDialect.SQLITE);
+        this.file = file;
+    }
+    
+    static TestDatabase open() throws IOException, SQLException {
+        Path file = Files.createTempFile("volunteerpunish-test", ".db");
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl("jdbc:sqlite:" + file.toAbsolutePath());
+        hikariConfig.setMaximumPoolSize(1);
+        hikariConfig.setPoolName("VolunteerPunish-Test");
+        
+        TestDatabase database = new TestDatabase(new HikariDataSource(hikariConfig), file);
+        SchemaMigrator migrator = new SchemaMigrator(Logger.getLogger("VolunteerPunish-Test"), SqlDialect.SQLITE);
+        try (Connection connection = database.dataSource.getConnection()) {
+            for (Migration migration : migrator.getMigrations()) {
+                migration.migrate(connection, SqlDialect.SQLITE);
+            }
+        }
+        return database;
+    }
+    
+    HikariDataSource getDataSource() {
+        return dataSource;
+    }
+    
+    StatementCache getStatements() {
+        return statements;
+    }
+    
+    Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        // 缓存的语句随物理连接一起关闭
+        dataSource.close();
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,40 @@
+package cn.popcraft.volunteerpunish.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UuidBytesTest {
+    @Test
+    void roundTrip() {
+        UUID[] uuids = {
+            new UUID(0L, 0L),
+            new UUID(-1L, -1L),
+            new UUID(Long.MIN_VALUE, Long.MAX_VALUE),
+            UUID.randomUUID()
+        };
+        for (UUID uuid : uuids) {
+            assertEquals(uuid, UuidBytes.fromBytes(UuidBytes.toBytes(uuid)));
+        }
+    }
+    
+    @Test
+    void bytesFollowStringOrder() {
+        UUID uuid = UUID.fromString("00112233-4455-6677-8899-aabbccddeeff");
+        byte[] expected = {
+            0x00, 0x11, 0x22, 0x33, 0x44, 0x55, 0x66, 0x77,
+            (byte) 0x88, (byte) 0x99, (byte) 0xaa, (byte) 0xbb, (byte) 0xcc, (byte) 0xdd, (byte) 0xee, (byte) 0xff
+        };
+        assertArrayEquals(expected, UuidBytes.toBytes(uuid));
+    }
+    
+    @Test
+    void rejectsWrongLength() {
+        assertThrows(IllegalArgumentException.class, () -> UuidBytes.fromBytes(null));
+        assertThrows(IllegalArgumentException.class, () -> UuidBytes.fromBytes(new byte[15]));
+    }
+}
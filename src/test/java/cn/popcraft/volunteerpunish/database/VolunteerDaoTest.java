@@ -0,0 +1,176 @@
+package cn.popcraft.volunteerpunish.database;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import cn.popcraft.volunteerpunish.model.Volunteer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VolunteerDaoTest {
+    private static final long HOUR_MILLIS = 3600000L;
+    // 固定的窗口起点，不依赖运行测试时的日期
+    private static final Timestamp WINDOW_START = new Timestamp(1700000000000L);
+    
+    private TestDatabase database;
+    private VolunteerDao volunteers;
+    
+    @BeforeEach
+    void setUp() throws IOException, SQLException {
+        database = TestDatabase.open();
+        volunteers = new VolunteerDao(SqlDialect.SQLITE, database.getStatements());
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        database.close();
+    }
+    
+    private Volunteer volunteer(UUID uuid, int banUsed, int muteUsed, Timestamp lastReset) {
+        Volunteer volunteer = new Volunteer();
+        volunteer.setUuid(uuid);
+        volunteer.setGroupName("default");
+        volunteer.setVolunteerId("V01");
+        volunteer.setDailyBanUsed(banUsed);
+        volunteer.setDailyMuteUsed(muteUsed);
+        volunteer.setLastReset(lastReset);
+        return volunteer;
+    }
+    
+    private Volunteer save(Volunteer volunteer) throws SQLException {
+        try (Connection connection = database.getConnection()) {
+            volunteers.save(connection, volunteer);
+        }
+        return volunteer;
+    }
+    
+    private Volunteer find(UUID uuid) throws SQLException {
+        try (Connection connection = database.getConnection()) {
+            return volunteers.findByUuid(connection, uuid);
+        }
+    }
+    
+    private boolean consume(UUID uuid, Punishment.Type type, int limit, Timestamp windowStart) throws SQLException {
+        try (Connection connection = database.getConnection()) {
+            return volunteers.tryConsumeQuota(connection, uuid, type, limit, windowStart);
+        }
+    }
+    
+    @Test
+    void saveAndFindRoundTrip() throws SQLException {
+        UUID uuid = UUID.fromString("0123e456-789a-4bcd-8ef0-123456789abc");
+        save(volunteer(uuid, 2, 1, WINDOW_START));
+        
+        Volunteer found = find(uuid);
+        assertNotNull(found);
+        assertEquals(uuid, found.getUuid());
+        assertEquals("default", found.getGroupName());
+        assertEquals("V01", found.getVolunteerId());
+        assertEquals(2, found.getDailyBanUsed());
+        assertEquals(1, found.getDailyMuteUsed());
+        assertEquals(WINDOW_START, found.getLastReset());
+        
+        try (Connection connection = database.getConnection()) {
+            assertEquals(uuid, volunteers.findByVolunteerId(connection, "V01").getUuid());
+        }
+        assertNull(find(UUID.randomUUID()));
+    }
+    
+    @Test
+    void consumeQuotaStopsAtLimit() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        save(volunteer(uuid, 0, 0, WINDOW_START));
+        
+        assertTrue(consume(uuid, Punishment.Type.BAN, 2, null));
+        assertTrue(consume(uuid, Punishment.Type.BAN, 2, null));
+        assertFalse(consume(uuid, Punishment.Type.BAN, 2, null));
+        
+        Volunteer found = find(uuid);
+        assertEquals(2, found.getDailyBanUsed());
+        assertEquals(0, found.getDailyMuteUsed());
+    }
+    
+    @Test
+    void expiredWindowResetsBothCounters() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        // 上一个窗口内两种配额都已用完
+        save(volunteer(uuid, 5, 3, new Timestamp(WINDOW_START.getTime() - HOUR_MILLIS)));
+        
+        assertTrue(consume(uuid, Punishment.Type.BAN, 5, WINDOW_START));
+        
+        Volunteer found = find(uuid);
+        assertEquals(1, found.getDailyBanUsed());
+        assertEquals(0, found.getDailyMuteUsed());
+        assertEquals(WINDOW_START, found.getLastReset());
+        
+        // 同一窗口内继续计数，不再重置
+        assertTrue(consume(uuid, Punishment.Type.MUTE, 3, WINDOW_START));
+        assertTrue(consume(uuid, Punishment.Type.BAN, 5, WINDOW_START));
+        found = find(uuid);
+        assertEquals(2, found.getDailyBanUsed());
+        assertEquals(1, found.getDailyMuteUsed());
+    }
+    
+    @Test
+    void neverResetVolunteerStartsNewWindow() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        save(volunteer(uuid, 4, 4, null));
+        
+        assertTrue(consume(uuid, Punishment.Type.MUTE, 1, WINDOW_START));
+        
+        Volunteer found = find(uuid);
+        assertEquals(0, found.getDailyBanUsed());
+        assertEquals(1, found.getDailyMuteUsed());
+        assertEquals(WINDOW_START, found.getLastReset());
+    }
+    
+    @Test
+    void exhaustedQuotaInCurrentWindowIsRejected() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        Timestamp lastReset = new Timestamp(WINDOW_START.getTime() + HOUR_MILLIS);
+        save(volunteer(uuid, 5, 2, lastReset));
+        
+        assertFalse(consume(uuid, Punishment.Type.BAN, 5, WINDOW_START));
+        
+        Volunteer found = find(uuid);
+        assertEquals(5, found.getDailyBanUsed());
+        assertEquals(2, found.getDailyMuteUsed());
+        assertEquals(lastReset, found.getLastReset());
+    }
+    
+    @Test
+    void unknownVolunteerConsumesNothing() throws SQLException {
+        assertFalse(consume(UUID.randomUUID(), Punishment.Type.BAN, 5, WINDOW_START));
+        assertFalse(consume(UUID.randomUUID(), Punishment.Type.BAN, 5, null));
+    }
+    
+    @Test
+    void updateVolunteerIdKeepsQuotaCounters() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        save(volunteer(uuid, 0, 0, WINDOW_START));
+        assertTrue(consume(uuid, Punishment.Type.BAN, 5, WINDOW_START));
+        
+        try (Connection connection = database.getConnection()) {
+            assertTrue(volunteers.updateVolunteerId(connection, uuid, "V02"));
+            assertTrue(volunteers.updateGroup(connection, uuid, "senior"));
+            assertFalse(volunteers.updateVolunteerId(connection, UUID.randomUUID(), "V03"));
+        }
+        
+        Volunteer found = find(uuid);
+        assertEquals("V02", found.getVolunteerId());
+        assertEquals("senior", found.getGroupName());
+        assertEquals(1, found.getDailyBanUsed());
+        assertEquals(WINDOW_START, found.getLastReset());
+    }
+}
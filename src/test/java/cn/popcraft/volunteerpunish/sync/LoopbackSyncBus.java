@@ -0,0 +1,63 @@
+package cn.popcraft.volunteerpunish.sync;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 在同一进程内转发事件，不经过网络
+ * 只用于测试：同一 JVM 中的多个实例之间互相投递，不会收到其他服务器的事件，不能在配置中选择
+ * 事件与真实的传输方式一样先序列化再解析，每个接收方得到独立的副本
+ */
+class LoopbackSyncBus implements SyncBus {
+    private static final List<LoopbackSyncBus> BUSES = new CopyOnWriteArrayList<>();
+
+    private volatile Consumer<SyncEvent> handler;
+
+    @Override
+    public void start(Consumer<SyncEvent> handler) {
+        this.handler = handler;
+        BUSES.add(this);
+    }
+
+    @Override
+    public void publish(SyncEvent event) {
+        byte[] message = encode(event);
+        for (LoopbackSyncBus bus : BUSES) {
+            Consumer<SyncEvent> target = bus.handler;
+            if (bus != this && target != null) {
+                target.accept(decode(message));
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        BUSES.remove(this);
+        handler = null;
+    }
+
+    private static byte[] encode(SyncEvent event) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            event.write(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SyncEvent decode(byte[] message) {
+        try {
+            return SyncEvent.read(new DataInputStream(new ByteArrayInputStream(message)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package cn.popcraft.volunteerpunish.sync;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoopbackSyncBusTest {
+    private final LoopbackSyncBus first = new LoopbackSyncBus();
+    private final LoopbackSyncBus second = new LoopbackSyncBus();
+    private final List<SyncEvent> firstReceived = Collections.synchronizedList(new ArrayList<>());
+    private final List<SyncEvent> secondReceived = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        first.start(firstReceived::add);
+        second.start(secondReceived::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.stop();
+        second.stop();
+    }
+
+    @Test
+    void publishReachesOtherBusesOnly() {
+        UUID target = UUID.randomUUID();
+        Date expiresAt = new Date(1700000000000L);
+        SyncEvent event = SyncEvent.punish(target, Punishment.Type.BAN, expiresAt, "外挂");
+        first.publish(event);
+
+        assertTrue(firstReceived.isEmpty());
+        assertEquals(1, secondReceived.size());
+        SyncEvent received = secondReceived.get(0);
+        // 接收方拿到的是解析出的副本
+        assertNotSame(event, received);
+        assertEquals(SyncEvent.Action.PUNISH, received.getAction());
+        assertEquals(target, received.getTarget());
+        assertEquals(Punishment.Type.BAN, received.getPunishmentType());
+        assertEquals(expiresAt, received.getExpiresAt());
+        assertEquals("外挂", received.getReason());
+    }
+
+    @Test
+    void stoppedBusReceivesNothing() {
+        second.stop();
+        first.publish(SyncEvent.unpunish(UUID.randomUUID(), Punishment.Type.MUTE));
+        assertTrue(secondReceived.isEmpty());
+
+        second.start(secondReceived::add);
+        first.publish(SyncEvent.unpunish(UUID.randomUUID(), Punishment.Type.MUTE));
+        assertEquals(1, secondReceived.size());
+        assertEquals(SyncEvent.Action.UNPUNISH, secondReceived.get(0).getAction());
+    }
+}
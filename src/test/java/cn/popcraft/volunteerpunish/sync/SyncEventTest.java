@@ -0,0 +1,79 @@
+package cn.popcraft.volunteerpunish.sync;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SyncEventTest {
+    private static byte[] encode(SyncEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        event.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static SyncEvent decode(byte[] message) throws IOException {
+        return SyncEvent.read(new DataInputStream(new ByteArrayInputStream(message)));
+    }
+
+    @Test
+    void punishRoundTrip() throws IOException {
+        UUID target = UUID.randomUUID();
+        Date expiresAt = new Date(1700000000000L);
+        SyncEvent event = decode(encode(SyncEvent.punish(target, Punishment.Type.MUTE, expiresAt, "刷屏")));
+
+        assertEquals(SyncEvent.Action.PUNISH, event.getAction());
+        assertEquals(target, event.getTarget());
+        assertEquals(Punishment.Type.MUTE, event.getPunishmentType());
+        assertEquals(expiresAt, event.getExpiresAt());
+        assertEquals("刷屏", event.getReason());
+    }
+
+    @Test
+    void permanentPunishmentWithoutReason() throws IOException {
+        SyncEvent event = decode(encode(SyncEvent.punish(UUID.randomUUID(), Punishment.Type.BAN, null, null)));
+
+        assertEquals(Punishment.Type.BAN, event.getPunishmentType());
+        assertNull(event.getExpiresAt());
+        assertNull(event.getReason());
+    }
+
+    @Test
+    void volunteerEventHasNoPunishmentType() throws IOException {
+        UUID target = UUID.randomUUID();
+        SyncEvent event = decode(encode(SyncEvent.volunteer(target)));
+
+        assertEquals(SyncEvent.Action.VOLUNTEER, event.getAction());
+        assertEquals(target, event.getTarget());
+        assertNull(event.getPunishmentType());
+    }
+
+    @Test
+    void wireFormatUsesStableCodes() throws IOException {
+        byte[] message = encode(SyncEvent.unpunish(new UUID(0L, 0L), Punishment.Type.MUTE));
+
+        // 版本、动作编号，16 字节 UUID 之后是处罚类型编号
+        assertEquals(3, message[0]);
+        assertEquals(SyncEvent.Action.UNPUNISH.getCode(), message[1]);
+        assertEquals(Punishment.Type.MUTE.getCode(), message[18]);
+    }
+
+    @Test
+    void rejectsOtherFormatVersions() throws IOException {
+        byte[] message = encode(SyncEvent.volunteer(UUID.randomUUID()));
+        // 旧版本的消息首字节是动作的枚举序号
+        message[0] = 0;
+
+        assertThrows(IOException.class, () -> decode(message));
+    }
+}
@@ -0,0 +1,70 @@
+package cn.popcraft.volunteerpunish.util;
+
+import cn.popcraft.volunteerpunish.model.Punishment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MessageTemplateTest {
+    private static Punishment punishment() {
+        Punishment punishment = new Punishment();
+        punishment.setId(42);
+        punishment.setVolunteerId("V07");
+        punishment.setType(Punishment.Type.BAN);
+        punishment.setDuration(7200L);
+        punishment.setReason("外挂");
+        punishment.setIssuedAt(new Date(1700000000000L));
+        punishment.setExpiresAt(new Date(1700007200000L));
+        return punishment;
+    }
+
+    @Test
+    void rendersPlaceholdersAndColors() {
+        MessageTemplate template = MessageTemplate.compile("&c#{id} {type} 由 {volunteer_id}: {reason} ({duration})");
+
+        assertEquals("§c#42 封禁 由 V07: 外挂 (2小时)", template.render(punishment(), "无"));
+    }
+
+    @Test
+    void formatsDates() {
+        MessageTemplate template = MessageTemplate.compile("{issued_at} -> {unban_time}");
+        Punishment punishment = punishment();
+
+        String expected = MessageTemplate.DATE_TIME.format(punishment.getIssuedAt().toInstant()) + " -> "
+                + MessageTemplate.DATE_TIME.format(punishment.getExpiresAt().toInstant());
+        assertEquals(expected, template.render(punishment, "无"));
+    }
+
+    @Test
+    void permanentAndMissingValues() {
+        Punishment punishment = punishment();
+        punishment.setType(Punishment.Type.MUTE);
+        punishment.setDuration(0L);
+        punishment.setExpiresAt(null);
+        punishment.setReason(null);
+        punishment.setVolunteerId(null);
+
+        MessageTemplate template = MessageTemplate.compile("{type} {duration} {unban_time} {reason} {volunteer_id}");
+        assertEquals("禁言 永久 永久 无 未知", template.render(punishment, "无"));
+    }
+
+    @Test
+    void durationUnits() {
+        MessageTemplate template = MessageTemplate.compile("{duration}");
+        Punishment punishment = punishment();
+        long[] seconds = {59L, 60L, 3599L, 3600L, 86399L, 86400L};
+        String[] expected = {"59秒", "1分钟", "59分钟", "1小时", "23小时", "1天"};
+        for (int i = 0; i < seconds.length; i++) {
+            punishment.setDuration(seconds[i]);
+            assertEquals(expected[i], template.render(punishment, "无"));
+        }
+    }
+
+    @Test
+    void keepsUnknownPlaceholdersAndUnclosedBraces() {
+        assertEquals("{player} 42 {id", MessageTemplate.compile("{player} {id} {id").render(punishment(), "无"));
+        assertEquals("纯文本", MessageTemplate.compile("纯文本").render(punishment(), "无"));
+    }
+}